@@ -0,0 +1,67 @@
+package sudoku.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The CandidateArray primitives on the innermost loops of the solver, for the candidates of a 9x9 grid and of the
+ * larger ones.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CandidateArrayBenchmark {
+	@Param({ "9", "16", "25" })
+	public int size;
+
+	private Object allCandidates;
+	private Object singleCandidate;
+	private int digit;
+
+	@Setup
+	public void createCandidateArrays() throws Throwable {
+		allCandidates = (Object) Targets.NEW_CANDIDATE_ARRAY.invokeExact(size);
+		singleCandidate = (Object) Targets.NEW_CANDIDATE_ARRAY.invokeExact(size);
+		for (int value = 1; value < size; value++) {
+			Targets.RESET_BIT.invokeExact(singleCandidate, value);
+		}
+	}
+
+	/**
+	 * Clears a different candidate every time, and sets it back so that there is always something to clear
+	 */
+	@Benchmark
+	public Object reSetBit() throws Throwable {
+		digit = (digit == size) ? 1 : digit + 1;
+		Targets.RESET_BIT.invokeExact(allCandidates, digit);
+		Targets.SET_BIT.invokeExact(allCandidates, digit);
+		return allCandidates;
+	}
+
+	@Benchmark
+	public int getNumberForBitSet() throws Throwable {
+		return (int) Targets.GET_NUMBER_FOR_BIT_SET.invokeExact(singleCandidate);
+	}
+
+	/**
+	 * Allocates the list on every call, which shows in the gc profiler
+	 */
+	@Benchmark
+	public int[] getListOfBitsSet() throws Throwable {
+		return (int[]) Targets.GET_LIST_OF_BITS_SET.invokeExact(allCandidates);
+	}
+}
@@ -0,0 +1,66 @@
+package sudoku.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Helper.isValidFormation() on the givens of a puzzle, as checked before solving, and on its solution, as checked
+ * at every leaf of the search; and the same checks through a reused GridValidator, as the solver makes them
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HelperBenchmark {
+	@Param({ "input1.txt", "input16x16_1.txt" })
+	public String puzzle;
+
+	private Object givens;
+	private Object solution;
+	private Object validator;
+
+	@Setup
+	public void solvePuzzle() throws Throwable {
+		int[][] grid = Targets.readGrid(puzzle);
+		givens = (Object) Targets.NEW_SUDOKU.invokeExact(grid);
+		Object solver = (Object) Targets.NEW_SUDOKU_SOLVER.invokeExact(grid);
+		if (!(boolean) Targets.SOLVE.invokeExact(solver)) {
+			throw new IllegalStateException("No solution for " + puzzle);
+		}
+		solution = (Object) Targets.GET_SUDOKU.invokeExact(solver);
+		validator = (Object) Targets.NEW_GRID_VALIDATOR.invokeExact((Object) Targets.GET_LAYOUT.invokeExact(givens));
+	}
+
+	@Benchmark
+	public boolean isValidFormationGivens() throws Throwable {
+		return (boolean) Targets.IS_VALID_FORMATION.invokeExact(givens, false);
+	}
+
+	@Benchmark
+	public boolean isValidFormationSolution() throws Throwable {
+		return (boolean) Targets.IS_VALID_FORMATION.invokeExact(solution, false);
+	}
+
+	@Benchmark
+	public int validateGivens() throws Throwable {
+		return (int) Targets.VALIDATE.invokeExact(validator, givens);
+	}
+
+	@Benchmark
+	public int validateSolution() throws Throwable {
+		return (int) Targets.VALIDATE.invokeExact(validator, solution);
+	}
+}
@@ -0,0 +1,57 @@
+package sudoku.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SudokuSolver.solve() with the placements propagated to the peers one peer at a time ("scalar") and by the
+ * jdk.incubator.vector backend ("vector"), see SudokuSolver.setVectorBackend().
+ *
+ * The forks run with the incubator module, and the vector backend needs the jar to be built on JDK 17 or later (the
+ * 'vector' profile of the pom); otherwise its runs fail in the setup rather than measure the scalar loop twice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class PeerEliminationBenchmark {
+	@Param({ "input7.txt", "input16.txt", "input16x16_1.txt", "input16x16_2.txt", "input25x25_1.txt",
+		"input36x36_1.txt" })
+	public String puzzle;
+
+	@Param({ "scalar", "vector" })
+	public String backend;
+
+	private int[][] grid;
+	private boolean vector;
+
+	@Setup
+	public void readPuzzle() throws Throwable {
+		grid = Targets.readGrid(puzzle);
+		vector = backend.equals("vector");
+		Object solver = (Object) Targets.NEW_SUDOKU_SOLVER.invokeExact(grid);
+		if (!(boolean) Targets.SET_VECTOR_BACKEND.invokeExact(solver, vector)) {
+			throw new IllegalStateException("The vector backend is not available");
+		}
+	}
+
+	@Benchmark
+	public boolean solve() throws Throwable {
+		Object solver = (Object) Targets.NEW_SUDOKU_SOLVER.invokeExact(grid);
+		boolean enabled = (boolean) Targets.SET_VECTOR_BACKEND.invokeExact(solver, vector);
+		return enabled && (boolean) Targets.SOLVE.invokeExact(solver);
+	}
+}
@@ -0,0 +1,47 @@
+package sudoku.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SudokuSolver.solve() on each of the sample puzzles, from construction of the solver to the solved grid.
+ *
+ * input17.txt is left out: it holds 88 values, which is not a grid.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SudokuSolverBenchmark {
+	@Param({ "input1.txt", "input2.txt", "input3.txt", "input4.txt", "input5.txt", "input6.txt", "input7.txt",
+		"input8.txt", "input9.txt", "input10.txt", "input11.txt", "input12.txt", "input13.txt", "input14.txt",
+		"input15.txt", "input16.txt", "input16x16_1.txt", "input16x16_2.txt", "input25x25_1.txt",
+		"input36x36_1.txt" })
+	public String puzzle;
+
+	private int[][] grid;
+
+	@Setup
+	public void readPuzzle() throws Exception {
+		grid = Targets.readGrid(puzzle);
+	}
+
+	@Benchmark
+	public boolean solve() throws Throwable {
+		Object solver = (Object) Targets.NEW_SUDOKU_SOLVER.invokeExact(grid);
+		return (boolean) Targets.SOLVE.invokeExact(solver);
+	}
+}
@@ -0,0 +1,121 @@
+package sudoku.jmh;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Handles on the solver classes being benchmarked.
+ *
+ * The solver classes live in the default package, which code in a named package can not refer to, while JMH
+ * refuses benchmarks in the default package. So the benchmarks call them through method handles instead. Held in
+ * static finals, the handles are constants to the JIT, and invokeExact() on them gets inlined like a direct call.
+ * Instances of the solver classes are passed around as Object.
+ */
+final class Targets {
+	// Directory of the sample inputs, relative to Sudoku/benchmarks unless set through -Dsudoku.input
+	static final Path INPUT_DIR = Paths.get(System.getProperty("sudoku.input", "../input"));
+
+	// (int[][]) -> SudokuSolver
+	static final MethodHandle NEW_SUDOKU_SOLVER;
+	// (SudokuSolver) -> boolean
+	static final MethodHandle SOLVE;
+	// (SudokuSolver, boolean enabled) -> boolean
+	static final MethodHandle SET_VECTOR_BACKEND;
+	// (SudokuSolver) -> Sudoku
+	static final MethodHandle GET_SUDOKU;
+	// (int[][]) -> Sudoku
+	static final MethodHandle NEW_SUDOKU;
+	// (Sudoku, boolean printReason) -> boolean
+	static final MethodHandle IS_VALID_FORMATION;
+	// (Sudoku) -> GridLayout
+	static final MethodHandle GET_LAYOUT;
+	// (GridLayout) -> GridValidator
+	static final MethodHandle NEW_GRID_VALIDATOR;
+	// (GridValidator, Sudoku) -> int
+	static final MethodHandle VALIDATE;
+	// (int n) -> CandidateArray
+	static final MethodHandle NEW_CANDIDATE_ARRAY;
+	// (CandidateArray, int) -> void
+	static final MethodHandle RESET_BIT;
+	// (CandidateArray, int) -> void
+	static final MethodHandle SET_BIT;
+	// (CandidateArray) -> int
+	static final MethodHandle GET_NUMBER_FOR_BIT_SET;
+	// (CandidateArray) -> int[]
+	static final MethodHandle GET_LIST_OF_BITS_SET;
+
+	static {
+		try {
+			Class<?> sudokuSolverClass = Class.forName("SudokuSolver");
+			Class<?> sudokuClass = Class.forName("Sudoku");
+			Class<?> candidateArrayClass = Class.forName("CandidateArray");
+			Class<?> helperClass = Class.forName("Helper");
+			Class<?> gridLayoutClass = Class.forName("GridLayout");
+			Class<?> gridValidatorClass = Class.forName("GridValidator");
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			// The constructor of CandidateArray is package-private
+			MethodHandles.Lookup candidateArrayLookup = MethodHandles.privateLookupIn(candidateArrayClass, MethodHandles.lookup());
+
+			NEW_SUDOKU_SOLVER = lookup.findConstructor(sudokuSolverClass, MethodType.methodType(void.class, int[][].class))
+				.asType(MethodType.methodType(Object.class, int[][].class));
+			SOLVE = lookup.findVirtual(sudokuSolverClass, "solve", MethodType.methodType(boolean.class))
+				.asType(MethodType.methodType(boolean.class, Object.class));
+			SET_VECTOR_BACKEND = lookup.findVirtual(sudokuSolverClass, "setVectorBackend",
+					MethodType.methodType(boolean.class, boolean.class))
+				.asType(MethodType.methodType(boolean.class, Object.class, boolean.class));
+			GET_SUDOKU = lookup.findVirtual(sudokuSolverClass, "getSudoku", MethodType.methodType(sudokuClass))
+				.asType(MethodType.methodType(Object.class, Object.class));
+			NEW_SUDOKU = lookup.findConstructor(sudokuClass, MethodType.methodType(void.class, int[][].class))
+				.asType(MethodType.methodType(Object.class, int[][].class));
+			IS_VALID_FORMATION = lookup.findStatic(helperClass, "isValidFormation",
+					MethodType.methodType(boolean.class, sudokuClass, boolean.class))
+				.asType(MethodType.methodType(boolean.class, Object.class, boolean.class));
+			GET_LAYOUT = lookup.findVirtual(sudokuClass, "getLayout", MethodType.methodType(gridLayoutClass))
+				.asType(MethodType.methodType(Object.class, Object.class));
+			NEW_GRID_VALIDATOR = lookup.findConstructor(gridValidatorClass, MethodType.methodType(void.class, gridLayoutClass))
+				.asType(MethodType.methodType(Object.class, Object.class));
+			VALIDATE = lookup.findVirtual(gridValidatorClass, "validate", MethodType.methodType(int.class, sudokuClass))
+				.asType(MethodType.methodType(int.class, Object.class, Object.class));
+			NEW_CANDIDATE_ARRAY = candidateArrayLookup.findConstructor(candidateArrayClass,
+					MethodType.methodType(void.class, int.class))
+				.asType(MethodType.methodType(Object.class, int.class));
+			RESET_BIT = lookup.findVirtual(candidateArrayClass, "reSetBit", MethodType.methodType(void.class, int.class))
+				.asType(MethodType.methodType(void.class, Object.class, int.class));
+			SET_BIT = lookup.findVirtual(candidateArrayClass, "setBit", MethodType.methodType(void.class, int.class))
+				.asType(MethodType.methodType(void.class, Object.class, int.class));
+			GET_NUMBER_FOR_BIT_SET = lookup.findVirtual(candidateArrayClass, "getNumberForBitSet",
+					MethodType.methodType(int.class))
+				.asType(MethodType.methodType(int.class, Object.class));
+			GET_LIST_OF_BITS_SET = lookup.findVirtual(candidateArrayClass, "getListOfBitsSet",
+					MethodType.methodType(int[].class))
+				.asType(MethodType.methodType(int[].class, Object.class));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private Targets() {
+	}
+
+	/**
+	 * Reads a puzzle file the way SudokuSolver does: whitespace separated integers, row by row, as many as the
+	 * grid has cells
+	 */
+	static int[][] readGrid(String fileName) throws IOException {
+		String[] tokens = new String(Files.readAllBytes(INPUT_DIR.resolve(fileName))).trim().split("\\s+");
+		int size = (int) Math.round(Math.sqrt(tokens.length));
+		if (size * size != tokens.length) {
+			throw new IOException("Not a square grid: " + fileName);
+		}
+		int[][] grid = new int[size][size];
+		for (int cell = 0; cell < tokens.length; cell++) {
+			grid[cell / size][cell % size] = Integer.parseInt(tokens[cell]);
+		}
+		return grid;
+	}
+}
@@ -0,0 +1,56 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class GridCanonicalizerTest {
+	private final GridCanonicalizer canonicalizer = new GridCanonicalizer(GridLayout.STANDARD);
+
+	@Test
+	void equivalentGridsHaveTheSameCanonicalForm() {
+		for (String fileName : TestGrids.STANDARD_PUZZLES) {
+			int[] puzzle = TestGrids.readCells(fileName);
+			// Every arrangement ties on the pattern of a complete grid, more than are followed (see the class
+			// comment), so its canonical form depends on the arrangement it is given in
+			if (TestGrids.isComplete(puzzle)) {
+				continue;
+			}
+			int[] canonical = canonicalizer.canonicalize(puzzle).getCanonicalCells().clone();
+			int[] transformed = TestGrids.transform(puzzle);
+			assertArrayEquals(canonical, canonicalizer.canonicalize(transformed).getCanonicalCells(), fileName);
+			int[] twiceTransformed = TestGrids.transform(transformed);
+			assertArrayEquals(canonical, canonicalizer.canonicalize(twiceTransformed).getCanonicalCells(),
+				fileName);
+		}
+	}
+
+	@Test
+	void canonicalFormIsAGridOfTheSameGivens() {
+		int[] puzzle = TestGrids.readCells("input5.txt");
+		GridCanonicalizer.Transform transform = canonicalizer.canonicalize(puzzle);
+		assertArrayEquals(transform.toCanonical(puzzle), transform.getCanonicalCells());
+		int[] cells = new int[puzzle.length];
+		transform.fromCanonical(transform.getCanonicalCells(), cells);
+		assertArrayEquals(puzzle, cells);
+	}
+
+	@Test
+	void solutionMapsBackToASolutionOfThePuzzle() {
+		int[] puzzle = TestGrids.readCells("input12.txt");
+		int[] transformed = TestGrids.transform(puzzle);
+		// A solution of the transformed puzzle, through the canonical form, is one of the puzzle
+		GridCanonicalizer.Transform transformedTransform = canonicalizer.canonicalize(transformed);
+		int[] canonicalSolution = transformedTransform.toCanonical(TestGrids.solve(transformed));
+		GridCanonicalizer.Transform transform = canonicalizer.canonicalize(puzzle);
+		int[] cells = new int[puzzle.length];
+		transform.fromCanonical(canonicalSolution, cells);
+		assertTrue(TestGrids.isSolutionOf(puzzle, cells));
+	}
+
+	@Test
+	void onlySupportsGridsUpTo9x9() {
+		assertTrue(GridCanonicalizer.isSupported(GridLayout.STANDARD));
+		assertFalse(GridCanonicalizer.isSupported(GridLayout.forNumCells(256)));
+	}
+}
@@ -0,0 +1,138 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The TEXT and PACKED puzzle formats, through PuzzleFormat, PuzzleReader and PuzzleWriter
+ */
+class PuzzleFormatTest {
+	private static final GridLayout LAYOUT = GridLayout.STANDARD;
+
+	@Test
+	void packAndUnpackRoundTrip() {
+		for (String fileName : TestGrids.STANDARD_PUZZLES) {
+			int[] puzzle = TestGrids.readCells(fileName);
+			byte[] buffer = new byte[3 + PuzzleFormat.packedSize(puzzle.length)];
+			PuzzleFormat.pack(puzzle, buffer, 3);
+			int[] cells = new int[puzzle.length];
+			assertTrue(PuzzleFormat.unpack(buffer, 3, cells, LAYOUT.size), fileName);
+			assertArrayEquals(puzzle, cells, fileName);
+		}
+		assertEquals(41, PuzzleFormat.packedSize(LAYOUT.numCells));
+	}
+
+	@Test
+	void unpackRejectsValuesOutOfRangeAndPadding() {
+		int[] cells = new int[LAYOUT.numCells];
+		byte[] buffer = new byte[PuzzleFormat.packedSize(cells.length)];
+		buffer[0] = (byte) 0xA0;
+		assertFalse(PuzzleFormat.unpack(buffer, 0, cells, LAYOUT.size));
+		buffer[0] = 0;
+		buffer[buffer.length - 1] = 0x01;
+		assertFalse(PuzzleFormat.unpack(buffer, 0, cells, LAYOUT.size));
+	}
+
+	@Test
+	void textLinesMayHaveDotsAndAComment() {
+		int[] puzzle = TestGrids.readCells("input4.txt");
+		StringBuilder line = new StringBuilder();
+		for (int value : puzzle) {
+			line.append((value == 0) ? '.' : (char) ('0' + value));
+		}
+		int[] cells = new int[LAYOUT.numCells];
+		assertTrue(PuzzleFormat.parseLine(line, cells));
+		assertArrayEquals(puzzle, cells);
+		line.append(PuzzleFormat.COMMENT_START).append("X-Wing");
+		assertTrue(PuzzleFormat.parseLine(line, cells));
+		assertArrayEquals(puzzle, cells);
+		line.setLength(LAYOUT.numCells - 1);
+		assertFalse(PuzzleFormat.parseLine(line, cells));
+	}
+
+	@Test
+	void readerKeepsMalformedLinesInPlace() throws IOException {
+		int[] first = TestGrids.readCells("input1.txt");
+		int[] second = TestGrids.readCells("input2.txt");
+		String input = toLine(first) + "\tBasic\r\n" + "12x\n" + toLine(second);
+		PuzzleReader reader = new PuzzleReader(toStream(input), PuzzleFormat.TEXT, LAYOUT);
+		int[] cells = new int[LAYOUT.numCells];
+		assertEquals(PuzzleReader.PUZZLE_READ, reader.nextPuzzle(cells));
+		assertArrayEquals(first, cells);
+		assertEquals(PuzzleReader.PUZZLE_MALFORMED, reader.nextPuzzle(cells));
+		assertEquals(PuzzleReader.PUZZLE_READ, reader.nextPuzzle(cells));
+		assertArrayEquals(second, cells);
+		assertEquals(PuzzleReader.END_OF_INPUT, reader.nextPuzzle(cells));
+		reader.close();
+	}
+
+	@Test
+	void writerAndReaderRoundTripInBothFormats() throws IOException {
+		checkRoundTrip(PuzzleFormat.TEXT);
+		checkRoundTrip(PuzzleFormat.PACKED);
+	}
+
+	private static void checkRoundTrip(int format) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		PuzzleWriter writer = new PuzzleWriter(output, format, LAYOUT);
+		for (String fileName : TestGrids.STANDARD_PUZZLES) {
+			writer.writePuzzle(TestGrids.readCells(fileName));
+		}
+		writer.close();
+		PuzzleReader reader = new PuzzleReader(new ByteArrayInputStream(output.toByteArray()), format, LAYOUT);
+		int[] cells = new int[LAYOUT.numCells];
+		for (String fileName : TestGrids.STANDARD_PUZZLES) {
+			assertEquals(PuzzleReader.PUZZLE_READ, reader.nextPuzzle(cells), fileName);
+			assertArrayEquals(TestGrids.readCells(fileName), cells, fileName);
+		}
+		assertEquals(PuzzleReader.END_OF_INPUT, reader.nextPuzzle(cells));
+		reader.close();
+	}
+
+	@Test
+	void rejectedPuzzleLeavesNothingInTheWriter() throws IOException {
+		int[] first = TestGrids.readCells("input1.txt");
+		int[] second = TestGrids.readCells("input2.txt");
+		int[] bad = first.clone();
+		bad[40] = LAYOUT.size + 1;
+		for (int format = PuzzleFormat.TEXT; format <= PuzzleFormat.PACKED; format++) {
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			PuzzleWriter writer = new PuzzleWriter(output, format, LAYOUT);
+			writer.writePuzzle(first);
+			try {
+				writer.writePuzzle(bad);
+				fail("Wrote a value out of range");
+			} catch (IllegalArgumentException expected) {
+			}
+			writer.writePuzzle(second);
+			writer.close();
+
+			ByteArrayOutputStream expected = new ByteArrayOutputStream();
+			writer = new PuzzleWriter(expected, format, LAYOUT);
+			writer.writePuzzle(first);
+			writer.writePuzzle(second);
+			writer.close();
+			assertArrayEquals(expected.toByteArray(), output.toByteArray());
+		}
+	}
+
+	private static String toLine(int[] cells) {
+		StringBuilder line = new StringBuilder();
+		for (int value : cells) {
+			line.append((char) ('0' + value));
+		}
+		return line.toString();
+	}
+
+	private static ByteArrayInputStream toStream(String text) {
+		return new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII));
+	}
+}
@@ -0,0 +1,83 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * SatSolver on small formulas, and SudokuCnf and the SAT backend of SudokuSolver against its search
+ */
+class SatBackendTest {
+	@Test
+	void solvesSatisfiableFormula() {
+		// (x1 or x2) and (not x1 or x3) and (not x2 or x3) and (not x3 or not x1)
+		SatSolver solver = new SatSolver(3);
+		solver.addClause(1, 2);
+		solver.addClause(-1, 3);
+		solver.addClause(-2, 3);
+		solver.addClause(-3, -1);
+		assertEquals(SatSolver.SATISFIABLE, solver.solve());
+		assertTrue(!solver.getValue(1) && solver.getValue(2) && solver.getValue(3));
+	}
+
+	@Test
+	void provesUnsatisfiableFormula() {
+		// Every assignment of x1, x2 falsifies one of the four clauses
+		SatSolver solver = new SatSolver(2);
+		solver.addClause(1, 2);
+		solver.addClause(1, -2);
+		solver.addClause(-1, 2);
+		solver.addClause(-1, -2);
+		assertEquals(SatSolver.UNSATISFIABLE, solver.solve());
+	}
+
+	@Test
+	void cnfOfGivensSolvesLikeTheSearch() {
+		for (String fileName : TestGrids.STANDARD_PUZZLES) {
+			checkCnfOfGivens(fileName);
+		}
+		checkCnfOfGivens("input16x16_1.txt");
+	}
+
+	private static void checkCnfOfGivens(String fileName) {
+		int[] puzzle = TestGrids.readCells(fileName);
+		SudokuCnf cnf = SudokuCnf.forGivens(GridLayout.forNumCells(puzzle.length), puzzle);
+		assertEquals(SatSolver.SATISFIABLE, cnf.solve(), fileName);
+		int[] solution = cnf.getSolution().clone();
+		assertTrue(TestGrids.isSolutionOf(puzzle, solution), fileName);
+		if (new SudokuSolver(puzzle).countSolutions() == SudokuSolver.UNIQUE_SOLUTION) {
+			assertArrayEquals(TestGrids.solve(puzzle), solution, fileName);
+		}
+	}
+
+	@Test
+	void cnfWithoutCandidatesIsUnsatisfiable() {
+		GridLayout layout = GridLayout.STANDARD;
+		int[] puzzle = TestGrids.readCells("input3.txt");
+		long[] candidateDigits = new long[layout.numCells];
+		for (int cell = 0; cell < layout.numCells; cell++) {
+			candidateDigits[cell] = (1L << layout.size) - 1;
+		}
+		int cell = 0;
+		while (puzzle[cell] != 0) {
+			cell++;
+		}
+		candidateDigits[cell] = 0;
+		assertEquals(SatSolver.UNSATISFIABLE, new SudokuCnf(layout, puzzle, candidateDigits).solve());
+	}
+
+	@Test
+	void solverWithSatBackendFindsTheSameSolutions() {
+		for (String fileName : TestGrids.LARGE_PUZZLES) {
+			int[] puzzle = TestGrids.readCells(fileName);
+			SudokuSolver solver = new SudokuSolver(puzzle);
+			solver.setSatMinGridSize(0);
+			assertTrue(solver.solve(), fileName);
+			int[] solution = solver.getSudoku().toCellArray();
+			assertTrue(TestGrids.isSolutionOf(puzzle, solution), fileName);
+			if (new SudokuSolver(puzzle).countSolutions() == SudokuSolver.UNIQUE_SOLUTION) {
+				assertArrayEquals(TestGrids.solve(puzzle), solution, fileName);
+			}
+		}
+	}
+}
@@ -0,0 +1,107 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import org.junit.jupiter.api.Test;
+
+class SolutionCacheTest {
+	@Test
+	void solvesLikeTheSolver() {
+		SolutionCache cache = new SolutionCache(100);
+		int numCached = 0;
+		for (String fileName : TestGrids.STANDARD_PUZZLES) {
+			int[] puzzle = TestGrids.readCells(fileName);
+			int[] cells = puzzle.clone();
+			assertTrue(cache.solve(cells, null), fileName);
+			assertTrue(TestGrids.isSolutionOf(puzzle, cells), fileName);
+			// A complete grid (input8.txt) is only checked, without going through the cache
+			if (!TestGrids.isComplete(puzzle)) {
+				numCached++;
+			}
+		}
+		assertEquals(0, cache.getNumHits());
+		assertEquals(numCached, cache.getNumMisses());
+		assertEquals(numCached, cache.size());
+	}
+
+	@Test
+	void equivalentPuzzleHitsAndGetsItsOwnSolution() {
+		SolutionCache cache = new SolutionCache(10);
+		// A puzzle with a unique solution, so that the solution from the cache is the one the solver finds
+		int[] puzzle = TestGrids.readCells("input5.txt");
+		assertTrue(cache.solve(puzzle.clone(), null));
+
+		int[] transformed = TestGrids.transform(puzzle);
+		int[] cells = transformed.clone();
+		assertTrue(cache.solve(cells, null));
+		assertEquals(1, cache.getNumHits());
+		assertEquals(1, cache.size());
+		assertTrue(TestGrids.isSolutionOf(transformed, cells));
+		assertArrayEquals(TestGrids.solve(transformed), cells);
+	}
+
+	@Test
+	void puzzleWithoutSolutionIsRememberedAndLeftAsItWas() {
+		int[] puzzle = TestGrids.readCells("input1.txt");
+		// The first empty cell gets the digit of a given in its row
+		int cell = 0;
+		while (puzzle[cell] != 0) {
+			cell++;
+		}
+		int given = cell - cell % 9;
+		while (puzzle[given] == 0) {
+			given++;
+		}
+		puzzle[cell] = puzzle[given];
+
+		SolutionCache cache = new SolutionCache(10);
+		for (int attempt = 0; attempt < 2; attempt++) {
+			int[] cells = puzzle.clone();
+			assertFalse(cache.solve(cells, null));
+			assertArrayEquals(puzzle, cells);
+		}
+		assertEquals(1, cache.getNumHits());
+		assertEquals(1, cache.getNumMisses());
+	}
+
+	@Test
+	void dropsTheLeastRecentlyUsedSolution() {
+		SolutionCache cache = new SolutionCache(2);
+		int[] first = TestGrids.readCells("input1.txt");
+		int[] second = TestGrids.readCells("input2.txt");
+		int[] third = TestGrids.readCells("input3.txt");
+		cache.solve(first.clone(), null);
+		cache.solve(second.clone(), null);
+		cache.solve(first.clone(), null);
+		cache.solve(third.clone(), null);
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getNumHits());
+
+		// The second puzzle was the least recently used one when the third came in
+		cache.solve(first.clone(), null);
+		cache.solve(second.clone(), null);
+		assertEquals(2, cache.getNumHits());
+		assertEquals(4, cache.getNumMisses());
+	}
+
+	@Test
+	void largeGridsAreSolvedDirectly() {
+		SolutionCache cache = new SolutionCache(10);
+		int[] puzzle = TestGrids.readCells("input16x16_1.txt");
+		int[] cells = puzzle.clone();
+		assertTrue(cache.solve(cells, null));
+		assertTrue(TestGrids.isSolutionOf(puzzle, cells));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void rejectsNonPositiveCapacity() {
+		try {
+			new SolutionCache(0);
+			fail("Created a cache without room");
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+}
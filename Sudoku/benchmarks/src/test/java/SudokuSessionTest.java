@@ -0,0 +1,161 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The moves of a SudokuSession are applied as deltas on its solver; these check them against sessions rebuilt
+ * from the givens.
+ */
+class SudokuSessionTest {
+	private static final int NUM_MOVES = 2000;
+
+	/**
+	 * Makes random moves on a session, mostly placements of the digits of the solution, one in five of any digit,
+	 * and removals, and after every move compares the session with one rebuilt from the givens by making the same
+	 * placements in the same order
+	 */
+	private static void checkRandomMoves(String fileName, long seed) {
+		int[][] grid = TestGrids.readGrid(fileName);
+		int[] givens = new Sudoku(grid).toCellArray();
+		int[] solution = TestGrids.solve(givens);
+		SudokuSession session = new SudokuSession(grid);
+		GridLayout layout = session.getLayout();
+		int[] emptyCells = new int[layout.numCells];
+		int numEmptyCells = 0;
+		for (int cell = 0; cell < layout.numCells; cell++) {
+			if (givens[cell] == 0) {
+				emptyCells[numEmptyCells++] = cell;
+			}
+		}
+
+		// The placements of the session in the order they were made, to rebuild it from
+		int[] placedCells = new int[layout.numCells];
+		int[] placedDigits = new int[layout.numCells];
+		int numPlaced = 0;
+		Random random = new Random(seed);
+		for (int move = 0; move < NUM_MOVES; move++) {
+			int cell = emptyCells[random.nextInt(numEmptyCells)];
+			int row = cell / layout.size;
+			int col = cell % layout.size;
+			boolean removing = session.getValue(row, col) != 0 && random.nextInt(3) > 0;
+			int digit = (random.nextInt(5) == 0) ? 1 + random.nextInt(layout.size) : solution[cell];
+			if (removing) {
+				session.remove(row, col);
+			} else {
+				session.place(row, col, digit);
+			}
+
+			// Placing over a digit removes it first, so either way the cell leaves the order
+			for (int idx = 0; idx < numPlaced; idx++) {
+				if (placedCells[idx] == cell) {
+					System.arraycopy(placedCells, idx + 1, placedCells, idx, numPlaced - idx - 1);
+					System.arraycopy(placedDigits, idx + 1, placedDigits, idx, numPlaced - idx - 1);
+					numPlaced--;
+					break;
+				}
+			}
+			if (!removing) {
+				placedCells[numPlaced] = cell;
+				placedDigits[numPlaced++] = digit;
+			}
+
+			SudokuSession rebuilt = new SudokuSession(grid);
+			for (int idx = 0; idx < numPlaced; idx++) {
+				rebuilt.place(placedCells[idx] / layout.size, placedCells[idx] % layout.size, placedDigits[idx]);
+			}
+			assertSameState(rebuilt, session, fileName + ", move " + move + ", seed " + seed);
+		}
+	}
+
+	/**
+	 * Checks that both sessions show the same grid, hints, pencil marks and highlighting
+	 */
+	private static void assertSameState(SudokuSession expected, SudokuSession actual, String message) {
+		assertEquals(expected.isDeadEnd(), actual.isDeadEnd(), message);
+		assertEquals(expected.getHintCell(), actual.getHintCell(), message);
+		int size = expected.getLayout().size;
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				String cellMessage = message + ", cell " + row + "," + col;
+				assertEquals(expected.getValue(row, col), actual.getValue(row, col), cellMessage);
+				assertEquals(expected.getDeducedValue(row, col), actual.getDeducedValue(row, col), cellMessage);
+				assertEquals(expected.getCandidates(row, col), actual.getCandidates(row, col), cellMessage);
+				assertEquals(expected.isConflicting(row, col), actual.isConflicting(row, col), cellMessage);
+			}
+		}
+	}
+
+	@Test
+	void randomMovesMatchRebuiltSessions() {
+		checkRandomMoves("input7.txt", 3);
+		checkRandomMoves("input16.txt", 11);
+	}
+
+	@Test
+	void randomMovesMatchRebuiltSessionsOn16x16() {
+		checkRandomMoves("input16x16_1.txt", 5);
+	}
+
+	@Test
+	void placingTheSolutionSolvesThePuzzle() {
+		int[][] grid = TestGrids.readGrid("input9.txt");
+		int[] solution = TestGrids.solve(new Sudoku(grid).toCellArray());
+		SudokuSession session = new SudokuSession(grid);
+		int size = session.getLayout().size;
+		for (int cell = 0; cell < solution.length; cell++) {
+			if (grid[cell / size][cell % size] == 0) {
+				assertFalse(session.isSolved());
+				session.place(cell / size, cell % size, solution[cell]);
+			}
+		}
+		assertTrue(session.isSolved());
+		assertFalse(session.isDeadEnd());
+		assertEquals(-1, session.getHintCell());
+	}
+
+	@Test
+	void digitAgainstADeductionIsADeadEndUntilRemoved() {
+		int[][] grid = TestGrids.readGrid("input1.txt");
+		SudokuSession session = new SudokuSession(grid);
+		int size = session.getLayout().size;
+		int cell = session.getHintCell();
+		assertTrue(cell >= 0);
+		int row = cell / size;
+		int col = cell % size;
+		session.place(row, col, session.getDeducedValue(row, col) % size + 1);
+		assertTrue(session.isDeadEnd());
+		assertEquals(-1, session.getHintCell());
+		assertTrue(session.remove(row, col));
+		assertFalse(session.isDeadEnd());
+		assertFalse(session.remove(row, col));
+	}
+
+	@Test
+	void givensCannotBeChanged() {
+		int[][] grid = TestGrids.readGrid("input1.txt");
+		SudokuSession session = new SudokuSession(grid);
+		int size = session.getLayout().size;
+		int cell = 0;
+		while (grid[cell / size][cell % size] == 0) {
+			cell++;
+		}
+		int row = cell / size;
+		int col = cell % size;
+		try {
+			session.place(row, col, 1);
+			fail("Placed a digit over the given at " + row + "," + col);
+		} catch (IllegalArgumentException expected) {
+		}
+		try {
+			session.remove(row, col);
+			fail("Removed the given at " + row + "," + col);
+		} catch (IllegalArgumentException expected) {
+		}
+		assertEquals(grid[row][col], session.getValue(row, col));
+	}
+}
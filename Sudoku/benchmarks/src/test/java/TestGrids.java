@@ -0,0 +1,90 @@
+import java.io.File;
+
+/**
+ * Puzzles and grid checks shared by the tests. The tests are in the default package along with the solver
+ * classes, so that they get at the package-private API as well.
+ */
+final class TestGrids {
+	// Directory of the sample inputs, set by the pom through -Dsudoku.input
+	static final File INPUT_DIR = new File(System.getProperty("sudoku.input", "../input"));
+
+	static final String[] STANDARD_PUZZLES = { "input1.txt", "input2.txt", "input3.txt", "input4.txt",
+		"input5.txt", "input6.txt", "input7.txt", "input8.txt", "input9.txt", "input10.txt", "input11.txt",
+		"input12.txt", "input13.txt", "input14.txt", "input15.txt", "input16.txt" };
+	static final String[] LARGE_PUZZLES = { "input16x16_1.txt", "input16x16_2.txt", "input25x25_1.txt",
+		"input36x36_1.txt" };
+
+	private TestGrids() {
+	}
+
+	/**
+	 * Reads one of the sample puzzles the way SudokuSolver.main() does
+	 */
+	static int[][] readGrid(String fileName) {
+		int[][] grid = SudokuSolver.readGrid(new String[] { new File(INPUT_DIR, fileName).getPath() });
+		if (grid == null) {
+			throw new IllegalStateException("Cannot read " + fileName);
+		}
+		return grid;
+	}
+
+	static int[] readCells(String fileName) {
+		return new Sudoku(readGrid(fileName)).toCellArray();
+	}
+
+	/**
+	 * Solves the flat puzzle with a new solver, by its search (never the SAT backend). Returns null if there is no
+	 * solution.
+	 */
+	static int[] solve(int[] puzzle) {
+		SudokuSolver solver = new SudokuSolver(puzzle);
+		solver.setSatMinGridSize(Integer.MAX_VALUE);
+		return solver.solve() ? solver.getSudoku().toCellArray() : null;
+	}
+
+	static boolean isComplete(int[] cells) {
+		for (int cell = 0; cell < cells.length; cell++) {
+			if (cells[cell] == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if the solution is a valid complete grid that keeps all the givens of the puzzle
+	 */
+	static boolean isSolutionOf(int[] puzzle, int[] solution) {
+		if (solution.length != puzzle.length) {
+			return false;
+		}
+		for (int cell = 0; cell < puzzle.length; cell++) {
+			if (solution[cell] == 0 || (puzzle[cell] != 0 && puzzle[cell] != solution[cell])) {
+				return false;
+			}
+		}
+		GridLayout layout = GridLayout.forNumCells(solution.length);
+		return new GridValidator(layout).validate(solution, 0) == GridValidator.VALID;
+	}
+
+	/**
+	 * Turns a 9x9 grid into an equivalent one: transposed, its first two bands swapped, the last two rows of each
+	 * band swapped and the digits relabeled (d -> d % 9 + 1)
+	 */
+	static int[] transform(int[] cells) {
+		GridLayout layout = GridLayout.STANDARD;
+		int[] transformed = new int[cells.length];
+		for (int row = 0; row < layout.size; row++) {
+			int band = row / layout.blockSize;
+			int position = row % layout.blockSize;
+			int newBand = (band < 2) ? 1 - band : band;
+			int newPosition = (position == 0) ? 0 : 3 - position;
+			int newRow = newBand * layout.blockSize + newPosition;
+			for (int col = 0; col < layout.size; col++) {
+				int value = cells[row * layout.size + col];
+				transformed[col * layout.size + newRow] = (value == 0) ? 0 : value % layout.size + 1;
+			}
+		}
+		return transformed;
+	}
+}
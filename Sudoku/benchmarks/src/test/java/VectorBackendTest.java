@@ -0,0 +1,48 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The vector backend of the peer elimination against the scalar loop. Skipped unless the tests run with the
+ * jdk.incubator.vector module and VectorPeerElimination (the 'vector' profile of the pom).
+ */
+class VectorBackendTest {
+	@Test
+	void solvesAndSearchesLikeTheScalarLoop() {
+		assumeTrue(SudokuSolver.isVectorBackendAvailable());
+		for (String fileName : TestGrids.STANDARD_PUZZLES) {
+			checkSameSolve(fileName);
+		}
+		for (String fileName : TestGrids.LARGE_PUZZLES) {
+			checkSameSolve(fileName);
+		}
+	}
+
+	private static void checkSameSolve(String fileName) {
+		int[] puzzle = TestGrids.readCells(fileName);
+		SudokuSolver scalar = new SudokuSolver(puzzle);
+		SudokuSolver vector = new SudokuSolver(puzzle);
+		assertTrue(vector.setVectorBackend(true), fileName);
+		assertTrue(scalar.solve(), fileName);
+		assertTrue(vector.solve(), fileName);
+		assertArrayEquals(scalar.getSudoku().toCellArray(), vector.getSudoku().toCellArray(), fileName);
+		assertEquals(scalar.getNodesExplored(), vector.getNodesExplored(), fileName);
+
+		scalar = new SudokuSolver(puzzle);
+		vector = new SudokuSolver(puzzle);
+		vector.setVectorBackend(true);
+		assertEquals(scalar.countSolutions(), vector.countSolutions(), fileName);
+		assertEquals(scalar.getNodesExplored(), vector.getNodesExplored(), fileName);
+	}
+
+	@Test
+	void fallsBackToTheScalarLoopWhenUnavailable() {
+		SudokuSolver solver = new SudokuSolver(TestGrids.readCells("input1.txt"));
+		assertEquals(SudokuSolver.isVectorBackendAvailable(), solver.setVectorBackend(true));
+		assertTrue(solver.setVectorBackend(false));
+		assertTrue(solver.solve());
+	}
+}
@@ -0,0 +1,404 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves a corpus of puzzles in parallel, one puzzle per line.
+ *
+ * Each line holds the 81 cells of a puzzle in row-major order, with '1'..'9' for the givens and '0' or '.' for
+ * the unsolved cells. The puzzles are read in chunks, every chunk is split across the cores of a ForkJoinPool,
+ * and the solutions are written out in input order: one line with the 81 digits of the solution, or an empty
+ * line if the puzzle is malformed, not a valid formation or has no solution. The overall throughput is reported
+ * on STDERR at the end of the run.
+ *
+ * An input file is memory mapped and split into chunks on line boundaries (see MappedPuzzleReader), and each
+ * chunk is parsed and solved by one worker straight from the mapped bytes. STDIN is read line by line instead.
+ *
+ * In counting mode the puzzles are checked for uniqueness instead (see SudokuSolver.countSolutions()), and each
+ * output line holds the number of solutions (0, 1 or 2+) and the number of search nodes explored, e.g. "1 3".
+ *
+ * If metrics are set, all the solvers add their deductions to them (see SolverMetrics). If a solution cache is
+ * set, the puzzles are solved through it (see SolutionCache), which pays off on inputs that repeat puzzles. If a
+ * timeout is set, a puzzle that takes longer is given up on (see SudokuSolver.solve(CancellationToken)) and gets
+ * an empty line, so that one hard puzzle does not hold up a worker.
+ */
+public class BatchSolver {
+	private static final int CHUNK_SIZE = 1 << 16;
+	// Below this many puzzles a task solves them itself instead of splitting further
+	private static final int PUZZLES_PER_TASK = 64;
+	// Size of the chunks a mapped input file is split into, about 50K puzzles
+	private static final long CHUNK_BYTES = 4L << 20;
+	// Number of file chunks in flight per worker, bounding how much output is buffered ahead of the writer
+	private static final int CHUNKS_IN_FLIGHT_PER_WORKER = 2;
+
+	private static final String UNIQUE_SOLUTION_PREFIX = SudokuSolver.UNIQUE_SOLUTION + " ";
+
+	private final ForkJoinPool pool;
+	private final boolean countSolutions;
+	private SolverMetrics metrics;
+	private SolutionCache cache;
+	private long timeoutNanos; // Per puzzle, 0 for none
+	private long numPuzzles;
+	private long numSolved;
+
+	public BatchSolver(int parallelism) {
+		this(parallelism, false);
+	}
+
+	/**
+	 * If countSolutions is set, the number of solutions of each puzzle gets written out instead of its solution
+	 */
+	public BatchSolver(int parallelism, boolean countSolutions) {
+		pool = new ForkJoinPool(parallelism);
+		this.countSolutions = countSolutions;
+	}
+
+	/**
+	 * Sets the metrics for all the solvers to add their deductions to. By default there are none.
+	 */
+	public void setMetrics(SolverMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Sets the cache to solve the puzzles through, which may be shared with other batch solvers. By default there
+	 * is none. Not used in counting mode.
+	 */
+	public void setCache(SolutionCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Sets the time after which the solve of a puzzle is given up on, and the puzzle left unsolved. By default
+	 * there is none. Not used in counting mode.
+	 */
+	public void setTimeout(long timeout, TimeUnit unit) {
+		timeoutNanos = unit.toNanos(timeout);
+	}
+
+	/**
+	 * Parses one line into the flat grid expected by SudokuSolver. Returns null if the line is not exactly
+	 * one cell per character.
+	 */
+	static int[] parsePuzzleLine(String line) {
+		int[] cells = new int[GridLayout.STANDARD.numCells];
+		return PuzzleFormat.parseLine(line, cells) ? cells : null;
+	}
+
+	/**
+	 * Solves the puzzle in the flat grid in place, through the cache if there is one, or else with the solver of
+	 * the calling thread (see SolverPool), giving up after timeoutNanos unless it is 0. Returns false if the
+	 * puzzle could not be solved.
+	 */
+	static boolean solveCells(int[] cells, SolverMetrics metrics, SolutionCache cache, long timeoutNanos) {
+		CancellationToken token = (timeoutNanos > 0)
+			? CancellationToken.withTimeout(timeoutNanos, TimeUnit.NANOSECONDS) : null;
+		return (cache != null) ? cache.solve(cells, metrics, token) : SolverPool.solve(cells, metrics, token);
+	}
+
+	/**
+	 * Counts the solutions of the puzzle in the flat grid. Returns the output line for it: "0", "1" or "2+",
+	 * followed by the number of search nodes explored.
+	 */
+	static String countCells(int[] cells, SolverMetrics metrics) {
+		SudokuSolver solver = SolverPool.acquire(cells);
+		solver.setMetrics(metrics);
+		int numSolutions = solver.countSolutions();
+		String count = (numSolutions == SudokuSolver.MULTIPLE_SOLUTIONS) ? numSolutions + "+" : Integer.toString(numSolutions);
+		return count + " " + solver.getNodesExplored();
+	}
+
+	/**
+	 * Counts the solutions of the puzzle on the given line, see countCells(). Returns an empty string if the line
+	 * is malformed.
+	 */
+	static String countLine(String line, SolverMetrics metrics) {
+		int[] cells = parsePuzzleLine(line.trim());
+		return (cells == null) ? "" : countCells(cells, metrics);
+	}
+
+	/**
+	 * Returns true if the output line is for a puzzle that was solved, or found to have a unique solution in
+	 * counting mode
+	 */
+	private static boolean isSolvedLine(String outputLine, boolean countSolutions) {
+		return countSolutions ? outputLine.startsWith(UNIQUE_SOLUTION_PREFIX) : !outputLine.isEmpty();
+	}
+
+	/**
+	 * Solves the puzzle on the given line. Returns the solution as a line of digits, or an empty string
+	 */
+	static String solveLine(String line, SolverMetrics metrics, SolutionCache cache, long timeoutNanos) {
+		int[] cells = parsePuzzleLine(line.trim());
+		if (cells == null || !solveCells(cells, metrics, cache, timeoutNanos)) {
+			return "";
+		}
+		char[] solutionLine = new char[cells.length];
+		for (int cell = 0; cell < cells.length; cell++) {
+			solutionLine[cell] = (char) ('0' + cells[cell]);
+		}
+		return new String(solutionLine);
+	}
+
+	/**
+	 * Parses and solves all the puzzles of one chunk of a mapped file, and returns the solution lines of the
+	 * chunk as bytes
+	 */
+	private static class ChunkTask extends RecursiveTask<byte[]> {
+		private static final long serialVersionUID = 1L;
+
+		private final MappedPuzzleReader.Chunk chunk;
+		private final int chunkBytes;
+		private final boolean countSolutions;
+		private final SolverMetrics metrics;
+		private final SolutionCache cache;
+		private final long timeoutNanos;
+		private long numPuzzles;
+		private long numSolved;
+
+		ChunkTask(MappedPuzzleReader.Chunk chunk, int chunkBytes, boolean countSolutions, SolverMetrics metrics,
+				SolutionCache cache, long timeoutNanos) {
+			this.chunk = chunk;
+			this.chunkBytes = chunkBytes;
+			this.countSolutions = countSolutions;
+			this.metrics = metrics;
+			this.cache = cache;
+			this.timeoutNanos = timeoutNanos;
+		}
+
+		@Override
+		protected byte[] compute() {
+			ByteArrayOutputStream output = new ByteArrayOutputStream(chunkBytes);
+			int[] cells = new int[GridLayout.STANDARD.numCells];
+			try {
+				chunk.open();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			try {
+				int status;
+				while ((status = chunk.nextPuzzle(cells)) != MappedPuzzleReader.END_OF_CHUNK) {
+					numPuzzles++;
+					if (countSolutions) {
+						String countLine = (status == MappedPuzzleReader.PUZZLE_READ)
+							? countCells(cells, metrics) : "";
+						for (int idx = 0; idx < countLine.length(); idx++) {
+							output.write(countLine.charAt(idx));
+						}
+						if (isSolvedLine(countLine, true)) {
+							numSolved++;
+						}
+						output.write('\n');
+						continue;
+					}
+					if (status == MappedPuzzleReader.PUZZLE_READ && solveCells(cells, metrics, cache, timeoutNanos)) {
+						for (int cell = 0; cell < cells.length; cell++) {
+							output.write('0' + cells[cell]);
+						}
+						numSolved++;
+					}
+					output.write('\n');
+				}
+			} finally {
+				chunk.release();
+			}
+			return output.toByteArray();
+		}
+	}
+
+	/**
+	 * Solves puzzles [start, end) of the chunk, splitting the range in halves until it is small enough. Every
+	 * leaf runs on a single worker thread and uses the solver of that thread, so no solver state is shared.
+	 */
+	private static class SolveTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final String[] puzzles;
+		private final String[] solutions;
+		private final int start;
+		private final int end;
+		private final boolean countSolutions;
+		private final SolverMetrics metrics;
+		private final SolutionCache cache;
+		private final long timeoutNanos;
+
+		SolveTask(String[] puzzles, String[] solutions, int start, int end, boolean countSolutions,
+				SolverMetrics metrics, SolutionCache cache, long timeoutNanos) {
+			this.puzzles = puzzles;
+			this.solutions = solutions;
+			this.start = start;
+			this.end = end;
+			this.countSolutions = countSolutions;
+			this.metrics = metrics;
+			this.cache = cache;
+			this.timeoutNanos = timeoutNanos;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start <= PUZZLES_PER_TASK) {
+				for (int idx = start; idx < end; idx++) {
+					solutions[idx] = countSolutions ? countLine(puzzles[idx], metrics)
+						: solveLine(puzzles[idx], metrics, cache, timeoutNanos);
+				}
+				return;
+			}
+			int mid = (start + end) >>> 1;
+			invokeAll(new SolveTask(puzzles, solutions, start, mid, countSolutions, metrics, cache, timeoutNanos),
+				new SolveTask(puzzles, solutions, mid, end, countSolutions, metrics, cache, timeoutNanos));
+		}
+	}
+
+	/**
+	 * Reads all the puzzles from the reader and writes their solutions to the writer, in the same order
+	 */
+	public void solveAll(BufferedReader reader, BufferedWriter writer) throws IOException {
+		String[] puzzles = new String[CHUNK_SIZE];
+		String[] solutions = new String[CHUNK_SIZE];
+		while (true) {
+			int chunkLength = 0;
+			String line;
+			while (chunkLength < CHUNK_SIZE && (line = reader.readLine()) != null) {
+				puzzles[chunkLength++] = line;
+			}
+			if (chunkLength == 0) {
+				break;
+			}
+
+			pool.invoke(new SolveTask(puzzles, solutions, 0, chunkLength, countSolutions, metrics, cache,
+				timeoutNanos));
+			for (int idx = 0; idx < chunkLength; idx++) {
+				writer.write(solutions[idx]);
+				writer.newLine();
+				if (isSolvedLine(solutions[idx], countSolutions)) {
+					numSolved++;
+				}
+			}
+			numPuzzles += chunkLength;
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Solves all the puzzles of the file through a memory mapping, and writes their solutions to the output
+	 * stream in the same order. The chunks are solved in parallel, but written out strictly in file order.
+	 */
+	public void solveFile(Path inputFile, OutputStream output) throws IOException {
+		try (MappedPuzzleReader reader = new MappedPuzzleReader(inputFile)) {
+			List<MappedPuzzleReader.Chunk> chunks = reader.split(CHUNK_BYTES);
+			Iterator<MappedPuzzleReader.Chunk> chunkIterator = chunks.iterator();
+			Deque<ChunkTask> inFlight = new ArrayDeque<ChunkTask>();
+			int maxInFlight = pool.getParallelism() * CHUNKS_IN_FLIGHT_PER_WORKER;
+			while (chunkIterator.hasNext() || !inFlight.isEmpty()) {
+				while (inFlight.size() < maxInFlight && chunkIterator.hasNext()) {
+					ChunkTask task = new ChunkTask(chunkIterator.next(), (int) CHUNK_BYTES, countSolutions, metrics,
+						cache, timeoutNanos);
+					pool.execute(task);
+					inFlight.addLast(task);
+				}
+				ChunkTask task = inFlight.removeFirst();
+				output.write(task.join());
+				numPuzzles += task.numPuzzles;
+				numSolved += task.numSolved;
+			}
+		}
+		output.flush();
+	}
+
+	public long getNumPuzzles() {
+		return numPuzzles;
+	}
+
+	/**
+	 * Number of puzzles solved, or found to have a unique solution in counting mode
+	 */
+	public long getNumSolved() {
+		return numSolved;
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Usage: java BatchSolver [-count] [-metrics] [-cache capacity] [-timeout millis] [inputFile [outputFile]]
+	 * Reads the puzzles from inputFile (STDIN if not given) and writes the solutions to outputFile (STDOUT if not
+	 * given). With -count, writes the number of solutions of each puzzle instead. With -metrics, prints the solver
+	 * metrics of the whole batch as JSON to STDERR at the end. With -cache, solves through a solution cache of up
+	 * to capacity puzzles, and prints its hits and misses to STDERR at the end. With -timeout, gives up on any
+	 * puzzle not solved within millis milliseconds, writing an empty line for it.
+	 */
+	public static void main(String[] args) throws IOException {
+		boolean countSolutions = false;
+		SolverMetrics metrics = null;
+		SolutionCache cache = null;
+		long timeoutMillis = 0;
+		while (args.length > 0 && (args[0].equals("-count") || args[0].equals("-metrics")
+				|| args[0].equals("-cache") || args[0].equals("-timeout"))) {
+			if (args[0].equals("-count")) {
+				countSolutions = true;
+			} else if (args[0].equals("-metrics")) {
+				metrics = new SolverMetrics();
+			} else if (args[0].equals("-timeout")) {
+				if (args.length < 2) {
+					throw new IllegalArgumentException("Missing milliseconds after -timeout");
+				}
+				timeoutMillis = Long.parseLong(args[1]);
+				args = Arrays.copyOfRange(args, 1, args.length);
+			} else {
+				if (args.length < 2) {
+					throw new IllegalArgumentException("Missing capacity after -cache");
+				}
+				cache = new SolutionCache(Integer.parseInt(args[1]));
+				args = Arrays.copyOfRange(args, 1, args.length);
+			}
+			args = Arrays.copyOfRange(args, 1, args.length);
+		}
+		OutputStream output = new BufferedOutputStream(args.length > 1 ? new FileOutputStream(args[1]) : System.out);
+
+		BatchSolver batchSolver = new BatchSolver(Runtime.getRuntime().availableProcessors(), countSolutions);
+		batchSolver.setMetrics(metrics);
+		batchSolver.setCache(cache);
+		batchSolver.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+		long startTime = System.nanoTime();
+		try {
+			if (args.length > 0) {
+				batchSolver.solveFile(Paths.get(args[0]), output);
+			} else {
+				BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+				batchSolver.solveAll(reader, new BufferedWriter(new OutputStreamWriter(output)));
+			}
+		} finally {
+			batchSolver.shutdown();
+			output.close();
+		}
+		double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+		System.err.printf((countSolutions ? "Found a unique solution for" : "Solved")
+			+ " %d of %d puzzles in %.3f s (%.0f puzzles/sec)%n", batchSolver.getNumSolved(),
+			batchSolver.getNumPuzzles(), elapsedSeconds, batchSolver.getNumPuzzles() / elapsedSeconds);
+		if (metrics != null) {
+			System.err.println(metrics.snapshot().toJson());
+		}
+		if (cache != null && !countSolutions) {
+			System.err.printf("Solution cache: %d hits, %d misses%n", cache.getNumHits(), cache.getNumMisses());
+		}
+	}
+}
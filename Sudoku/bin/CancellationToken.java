@@ -0,0 +1,50 @@
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tells a solve to give up (see SudokuSolver.solve(CancellationToken)), either through cancel(), from any thread,
+ * or once its deadline has passed. Once cancelled a token stays cancelled, so a deadline takes a new token for
+ * every solve.
+ */
+public class CancellationToken {
+	private final boolean hasDeadline;
+	private final long deadline; // System.nanoTime() at which the token cancels itself, if it has a deadline
+	private volatile boolean cancelled;
+
+	/**
+	 * A token without a deadline, only cancelled by cancel()
+	 */
+	public CancellationToken() {
+		this(false, 0);
+	}
+
+	private CancellationToken(boolean hasDeadline, long deadline) {
+		this.hasDeadline = hasDeadline;
+		this.deadline = deadline;
+	}
+
+	/**
+	 * A token that cancels itself once the timeout has passed from now, or before through cancel()
+	 */
+	public static CancellationToken withTimeout(long timeout, TimeUnit unit) {
+		return new CancellationToken(true, System.nanoTime() + unit.toNanos(timeout));
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Returns true if cancel() was called or the deadline has passed. Cheap enough for the inner loops of the
+	 * solvers: a volatile read, and a System.nanoTime() if there is a deadline.
+	 */
+	public boolean isCancelled() {
+		if (cancelled) {
+			return true;
+		}
+		if (hasDeadline && System.nanoTime() - deadline >= 0) {
+			cancelled = true;
+			return true;
+		}
+		return false;
+	}
+}
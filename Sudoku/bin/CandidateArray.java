@@ -1,83 +1,93 @@
+/**
+ * Set of candidate values 1..n, kept as a bitmask in a single long: value v is a candidate if bit (v - 1)
+ * is set. Counting and lookups use the bit-count and trailing-zero intrinsics, so none of the queries loop
+ * over the values or allocate, except getListOfBitsSet().
+ *
+ * One word covers every grid up to 64x64. On a 64 bit JVM the long operations cost the same as int ones,
+ * so there is no separate int variant for the grids up to 32x32.
+ */
 public class CandidateArray {
-	private static final int BYTE_MASK = 0xFFFFFFF8;
-	private static final int BITS_IN_BYTE = 8;
-	private byte[] candidateBitArray;
-	private int numberOfBitsSet;
+	private static final int MAX_SIZE = Long.SIZE;
+	private long candidateBits;
 	private int maxValue;
 
 	CandidateArray(int n) throws IllegalArgumentException {
-		if (n <= 0) {
+		if (n <= 0 || n > MAX_SIZE) {
 			throw new IllegalArgumentException("Invalid size of candidate array:" + n);
 		}
-		candidateBitArray = new byte[(n + 7) >> 3];
-
-		for (int idx = 0; idx < candidateBitArray.length; idx++) {
-			for (int bitIdx = 0; bitIdx < BITS_IN_BYTE; bitIdx++) {
-				candidateBitArray[idx] |= (0x1 << bitIdx);
-				numberOfBitsSet++;
-				if (numberOfBitsSet == n) {
-					break;
-				}
-			}
-			if (numberOfBitsSet == n) {
-				break;
-			}
-		}
+		candidateBits = (n == MAX_SIZE) ? -1L : (1L << n) - 1;
 		maxValue = n;
 	}
 
+	/**
+	 * Makes all the values candidates again, as after construction
+	 */
+	void reset() {
+		candidateBits = (maxValue == MAX_SIZE) ? -1L : (1L << maxValue) - 1;
+	}
+
 	public void reSetBit(int n) {
-		if (isBitSet(n)) {
-			int bite = ((n - 1) & BYTE_MASK) >> 3;
-			candidateBitArray[bite] &= ~(0x1 << ((n - 1) & 0x7));
-			numberOfBitsSet--;
-		}
+		candidateBits &= ~(1L << (n - 1));
 	}
 
 	public void setBit(int n) {
-		int bite = ((n - 1) & BYTE_MASK) >> 3;
-		candidateBitArray[bite] |= (0x1 << ((n - 1) & 0x7));
+		candidateBits |= 1L << (n - 1);
 	}
 
 	public boolean isBitSet(int n) {
-		int bite = ((n - 1) & BYTE_MASK) >> 3;
-		return (candidateBitArray[bite] & (0x1 << ((n - 1) & 0x7))) != 0;
+		return (candidateBits & (1L << (n - 1))) != 0;
 	}
 
 	public boolean moreThanOneBitsSet() {
-		return (numberOfBitsSet > 1);
+		// Clearing the lowest set bit leaves something behind only if there were at least two
+		return (candidateBits & (candidateBits - 1)) != 0;
 	}
 
 	public boolean isOnlyBitSet() {
-		return numberOfBitsSet == 1;
+		return candidateBits != 0 && (candidateBits & (candidateBits - 1)) == 0;
 	}
 
 	public boolean isGivenNumBitsSet(int n) {
-		return numberOfBitsSet == n;
+		return Long.bitCount(candidateBits) == n;
 	}
 
 	public boolean isNoBitSet() {
-		return numberOfBitsSet == 0;
+		return candidateBits == 0;
+	}
+
+	public int getNumberOfBitsSet() {
+		return Long.bitCount(candidateBits);
+	}
+
+	/**
+	 * Raw bitmask of the candidates, bit (v - 1) standing for value v. Lets callers walk the candidates
+	 * with Long.numberOfTrailingZeros() instead of allocating a list.
+	 */
+	public long getBitMask() {
+		return candidateBits;
+	}
+
+	/**
+	 * Restores a bitmask returned by getBitMask(), e.g. when the solver undoes its changes
+	 */
+	void setBitMask(long bitMask) {
+		candidateBits = bitMask;
 	}
 
 	// Assuming only one bit is set
 	public int getNumberForBitSet() {
-		for (int val = 1; val <= maxValue; val++) {
-			if (isBitSet(val)) {
-				return val;
-			}
+		if (candidateBits == 0) {
+			return -1;
 		}
-		return -1;
+		return Long.numberOfTrailingZeros(candidateBits) + 1;
 	}
 
 	public int[] getListOfBitsSet() {
-		int[] bitsSet = new int[numberOfBitsSet];
+		int[] bitsSet = new int[Long.bitCount(candidateBits)];
 		int idx = 0;
-		for (int val = 1; val <= maxValue; val++) {
-			if (isBitSet(val)) {
-				bitsSet[idx] = val;
-				idx++;
-			}
+		for (long bits = candidateBits; bits != 0; bits &= bits - 1) {
+			bitsSet[idx] = Long.numberOfTrailingZeros(bits) + 1;
+			idx++;
 		}
 		return bitsSet;
 	}
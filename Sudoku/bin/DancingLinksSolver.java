@@ -0,0 +1,268 @@
+/**
+ * Alternative solving engine that models the grid as an exact-cover problem and solves it with Knuth's
+ * Algorithm X using Dancing Links.
+ *
+ * Every (row, col, digit) placement is a row of the exact-cover matrix and covers exactly four constraints
+ * (columns of the matrix): the cell is filled, the digit appears in the row, in the column and in the block.
+ * For a 9x9 grid that is 729 matrix rows and 324 constraints, for a 16x16 grid 4096 and 1024. The nodes are kept in parallel int arrays
+ * instead of objects, so the links stay compact and the search allocates nothing.
+ */
+public class DancingLinksSolver {
+	private static final int ROOT = 0;
+
+	private final GridLayout layout;
+	private final int gridRowSize;
+	private final int numCells;
+	private final int numConstraints;
+	private final int numMatrixRows;
+
+	private int[][] grid;
+
+	// Node 0 is the root, nodes 1..numConstraints are the column headers, rest are the matrix entries
+	private int[] left;
+	private int[] right;
+	private int[] up;
+	private int[] down;
+	private int[] column;
+	private int[] matrixRow;
+	private int[] columnSize;
+
+	private int[] solutionRows;
+	private int solutionDepth;
+	private long nodesVisited;
+
+	/**
+	 * The grid can be of any supported size (see GridLayout)
+	 */
+	public DancingLinksSolver(int[][] grid) {
+		this.grid = grid;
+		layout = new Sudoku(grid).getLayout();
+		gridRowSize = layout.size;
+		numCells = layout.numCells;
+		numConstraints = 4 * numCells;
+		numMatrixRows = numCells * gridRowSize;
+		int numNodes = 1 + numConstraints + 4 * numMatrixRows;
+		left = new int[numNodes];
+		right = new int[numNodes];
+		up = new int[numNodes];
+		down = new int[numNodes];
+		column = new int[numNodes];
+		matrixRow = new int[numNodes];
+		columnSize = new int[numConstraints + 1];
+		solutionRows = new int[numCells];
+	}
+
+	private int getCellConstraint(int row, int col) {
+		return row * gridRowSize + col;
+	}
+
+	private int getRowConstraint(int row, int digit) {
+		return numCells + row * gridRowSize + digit - 1;
+	}
+
+	private int getColConstraint(int col, int digit) {
+		return 2 * numCells + col * gridRowSize + digit - 1;
+	}
+
+	private int getBlockConstraint(int row, int col, int digit) {
+		return 3 * numCells + layout.blockOf[layout.getCell(row, col)] * gridRowSize + digit - 1;
+	}
+
+	/**
+	 * Builds the full exact-cover matrix: root and column headers in one circular list, and one circular list
+	 * of 4 nodes for each (row, col, digit) placement, linked into the columns of the constraints it covers
+	 */
+	private void buildMatrix() {
+		for (int header = 0; header <= numConstraints; header++) {
+			left[header] = header - 1;
+			right[header] = header + 1;
+			up[header] = header;
+			down[header] = header;
+			column[header] = header;
+		}
+		left[ROOT] = numConstraints;
+		right[numConstraints] = ROOT;
+
+		int node = numConstraints + 1;
+		for (int row = 0; row < gridRowSize; row++) {
+			for (int col = 0; col < gridRowSize; col++) {
+				for (int digit = 1; digit <= gridRowSize; digit++) {
+					int rowId = (row * gridRowSize + col) * gridRowSize + digit - 1;
+					int first = node;
+					int[] constraints = {
+						getCellConstraint(row, col),
+						getRowConstraint(row, digit),
+						getColConstraint(col, digit),
+						getBlockConstraint(row, col, digit)
+					};
+					for (int constraint : constraints) {
+						int header = constraint + 1;
+						column[node] = header;
+						matrixRow[node] = rowId;
+						// Append at the bottom of the column
+						up[node] = up[header];
+						down[node] = header;
+						down[up[header]] = node;
+						up[header] = node;
+						columnSize[header]++;
+						// Append at the end of the matrix row
+						left[node] = node == first ? node : node - 1;
+						right[node] = first;
+						right[left[node]] = node;
+						left[first] = node;
+						node++;
+					}
+				}
+			}
+		}
+	}
+
+	private void cover(int header) {
+		right[left[header]] = right[header];
+		left[right[header]] = left[header];
+		for (int rowNode = down[header]; rowNode != header; rowNode = down[rowNode]) {
+			for (int node = right[rowNode]; node != rowNode; node = right[node]) {
+				down[up[node]] = down[node];
+				up[down[node]] = up[node];
+				columnSize[column[node]]--;
+			}
+		}
+	}
+
+	private void uncover(int header) {
+		for (int rowNode = up[header]; rowNode != header; rowNode = up[rowNode]) {
+			for (int node = left[rowNode]; node != rowNode; node = left[node]) {
+				columnSize[column[node]]++;
+				down[up[node]] = node;
+				up[down[node]] = node;
+			}
+		}
+		right[left[header]] = header;
+		left[right[header]] = header;
+	}
+
+	/**
+	 * Finds the node for the given matrix row in the column of its cell constraint
+	 */
+	private int findNodeForMatrixRow(int rowId) {
+		int header = rowId / gridRowSize + 1;
+		for (int node = down[header]; node != header; node = down[node]) {
+			if (matrixRow[node] == rowId) {
+				return node;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Algorithm X: always branch on the constraint with the fewest remaining matrix rows
+	 */
+	private boolean search() {
+		if (right[ROOT] == ROOT) {
+			return true;
+		}
+		nodesVisited++;
+
+		int chosenHeader = right[ROOT];
+		for (int header = right[ROOT]; header != ROOT; header = right[header]) {
+			if (columnSize[header] < columnSize[chosenHeader]) {
+				chosenHeader = header;
+				if (columnSize[header] <= 1) {
+					break;
+				}
+			}
+		}
+		if (columnSize[chosenHeader] == 0) {
+			return false;
+		}
+
+		cover(chosenHeader);
+		for (int rowNode = down[chosenHeader]; rowNode != chosenHeader; rowNode = down[rowNode]) {
+			solutionRows[solutionDepth++] = matrixRow[rowNode];
+			for (int node = right[rowNode]; node != rowNode; node = right[node]) {
+				cover(column[node]);
+			}
+			if (search()) {
+				return true;
+			}
+			for (int node = left[rowNode]; node != rowNode; node = left[node]) {
+				uncover(column[node]);
+			}
+			solutionDepth--;
+		}
+		uncover(chosenHeader);
+		return false;
+	}
+
+	/**
+	 * Solves the grid given at construction time. Returns the solved Sudoku, or null if the givens are
+	 * contradictory or the puzzle has no solution.
+	 */
+	public Sudoku solve() {
+		if (!Helper.isValidFormation(new Sudoku(grid))) {
+			return null;
+		}
+
+		buildMatrix();
+		solutionDepth = 0;
+		nodesVisited = 0;
+
+		// The givens are part of every solution: select their matrix rows up front
+		for (int row = 0; row < gridRowSize; row++) {
+			for (int col = 0; col < gridRowSize; col++) {
+				int value = grid[row][col];
+				if (value == 0) {
+					continue;
+				}
+				int rowNode = findNodeForMatrixRow((row * gridRowSize + col) * gridRowSize + value - 1);
+				solutionRows[solutionDepth++] = matrixRow[rowNode];
+				cover(column[rowNode]);
+				for (int node = right[rowNode]; node != rowNode; node = right[node]) {
+					cover(column[node]);
+				}
+			}
+		}
+
+		if (!search()) {
+			return null;
+		}
+
+		Sudoku sudoku = new Sudoku(layout);
+		for (int idx = 0; idx < solutionDepth; idx++) {
+			int rowId = solutionRows[idx];
+			int cell = rowId / gridRowSize;
+			sudoku.setValue(cell / gridRowSize, cell % gridRowSize, rowId % gridRowSize + 1);
+		}
+		return sudoku;
+	}
+
+	/**
+	 * Number of search nodes explored by the last call to solve()
+	 */
+	public long getNodesVisited() {
+		return nodesVisited;
+	}
+
+	/**
+	 * Reads the grid the same way as SudokuSolver: from the file given as argument, or from STDIN
+	 */
+	public static void main(String[] args) throws Exception {
+		int[][] grid = SudokuSolver.readGrid(args);
+		if (grid == null) {
+			return;
+		}
+
+		DancingLinksSolver solver = new DancingLinksSolver(grid);
+		new Sudoku(grid).printGrid();
+		long startTime = System.nanoTime();
+		Sudoku solution = solver.solve();
+		long elapsedMicros = (System.nanoTime() - startTime) / 1000;
+		if (solution == null) {
+			System.out.println("No solution exists");
+			return;
+		}
+		System.out.println("\n\nGrid:");
+		solution.printGrid();
+		System.out.println("Solved in " + elapsedMicros + " us, " + solver.getNodesVisited() + " search nodes");
+	}
+}
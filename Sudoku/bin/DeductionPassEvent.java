@@ -0,0 +1,23 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one pass of a deduction technique of SudokuSolver, see SolverMetrics for the techniques.
+ * Committed only while a recording has the event enabled; otherwise the JIT reduces it to nothing.
+ */
+@Name("sudoku.DeductionPass")
+@Label("Deduction Pass")
+@Category("Sudoku")
+@Description("One pass of a deduction technique of the solver")
+@StackTrace(false)
+class DeductionPassEvent extends Event {
+	@Label("Technique")
+	String technique;
+
+	@Label("Eliminations")
+	long eliminations;
+}
@@ -0,0 +1,28 @@
+/**
+ * A deduction SudokuSolver can escalate to when its basic rules (singles and block-line interactions) stop making
+ * progress, e.g. naked pairs or X-Wing.
+ *
+ * A strategy reads the candidates through the solver (getCandidateDigits(), getCandidatePositions()) and removes
+ * the ones it rules out through solver.eliminate(), which keeps all the candidate tables in step and queues up the
+ * singles that follow. A strategy stops early once solver.pollCancelled() returns true, which it polls on every
+ * step of its loops, so that a deadline on the solve does not have to wait for a whole pass. Strategies keep no
+ * state of their own, so one instance can be shared by any number of solvers and threads.
+ */
+public interface DeductionStrategy {
+	/**
+	 * Name of the technique, e.g. "Naked pair"
+	 */
+	String getName();
+
+	/**
+	 * Relative cost of a pass of the strategy. The solver tries the cheaper strategies first, and only moves on to
+	 * a more expensive one when all the cheaper ones find nothing.
+	 */
+	int getCost();
+
+	/**
+	 * Looks for the pattern over the whole grid, and eliminates the candidates it rules out. Returns true if at
+	 * least one candidate was eliminated.
+	 */
+	boolean apply(SudokuSolver solver);
+}
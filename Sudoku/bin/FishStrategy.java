@@ -0,0 +1,104 @@
+/**
+ * Basic fish on a single digit: X-Wing (2 lines), Swordfish (3 lines)...
+ *
+ * If on fishSize rows the candidate cells for a digit all lie within the same fishSize columns, the digit takes
+ * up those columns on those rows, so it is no longer a candidate for the other cells of those columns. The same
+ * holds with rows and columns swapped.
+ *
+ * The candidate positions of a digit along a row are its column indexes and vice versa, so the union of the
+ * positions of the chosen rows is directly the mask of the columns they cover.
+ */
+public class FishStrategy implements DeductionStrategy {
+	private static final String[] FISH_NAMES = { "", "", "X-Wing", "Swordfish", "Jellyfish" };
+
+	private final int fishSize;
+	private final int cost;
+
+	public FishStrategy(int fishSize, int cost) throws IllegalArgumentException {
+		if (fishSize < 2 || fishSize >= FISH_NAMES.length) {
+			throw new IllegalArgumentException("Invalid fish size:" + fishSize);
+		}
+		this.fishSize = fishSize;
+		this.cost = cost;
+	}
+
+	@Override
+	public String getName() {
+		return FISH_NAMES[fishSize];
+	}
+
+	@Override
+	public int getCost() {
+		return cost;
+	}
+
+	@Override
+	public boolean apply(SudokuSolver solver) {
+		GridLayout layout = solver.getLayout();
+		boolean eliminated = false;
+		for (int digit = 1; digit <= layout.size && !solver.pollCancelled(); digit++) {
+			// Rows as base lines and columns as cover lines, then the other way round
+			eliminated |= applyForBase(solver, layout, digit, 0, layout.size);
+			eliminated |= applyForBase(solver, layout, digit, layout.size, 0);
+		}
+		return eliminated;
+	}
+
+	private boolean applyForBase(SudokuSolver solver, GridLayout layout, int digit, int baseUnitsStart,
+			int coverUnitsStart) {
+		long baseLines = 0;
+		for (int line = 0; line < layout.size; line++) {
+			int numPositions = Long.bitCount(solver.getCandidatePositions(baseUnitsStart + line, digit));
+			if (numPositions >= 2 && numPositions <= fishSize) {
+				baseLines |= 1L << line;
+			}
+		}
+		if (Long.bitCount(baseLines) < fishSize) {
+			return false;
+		}
+		return extendFish(solver, layout, digit, baseUnitsStart, coverUnitsStart, baseLines, 0, 0, 0);
+	}
+
+	/**
+	 * Adds each of the remaining base lines in turn to the ones chosen so far (numChosen lines, covered by the
+	 * lines in coverLines), and eliminates from the cover lines of every complete fish
+	 */
+	private boolean extendFish(SudokuSolver solver, GridLayout layout, int digit, int baseUnitsStart,
+			int coverUnitsStart, long remaining, int numChosen, long chosen, long coverLines) {
+		boolean eliminated = false;
+		for (long rest = remaining; rest != 0 && !solver.pollCancelled(); rest &= rest - 1) {
+			int line = Long.numberOfTrailingZeros(rest);
+			long positions = solver.getCandidatePositions(baseUnitsStart + line, digit);
+			// The eliminations of an earlier fish may have placed the digit on the line in the meantime
+			if (Long.bitCount(positions) < 2) {
+				continue;
+			}
+			long newCoverLines = coverLines | positions;
+			if (Long.bitCount(newCoverLines) > fishSize) {
+				continue;
+			}
+			long newChosen = chosen | (1L << line);
+			if (numChosen + 1 < fishSize) {
+				eliminated |= extendFish(solver, layout, digit, baseUnitsStart, coverUnitsStart, rest & (rest - 1),
+					numChosen + 1, newChosen, newCoverLines);
+			} else if (Long.bitCount(newCoverLines) == fishSize) {
+				eliminated |= eliminateFromCoverLines(solver, layout, digit, coverUnitsStart, newChosen, newCoverLines);
+			}
+		}
+		return eliminated;
+	}
+
+	private boolean eliminateFromCoverLines(SudokuSolver solver, GridLayout layout, int digit, int coverUnitsStart,
+			long baseLines, long coverLines) {
+		boolean eliminated = false;
+		for (long coverBits = coverLines; coverBits != 0; coverBits &= coverBits - 1) {
+			int coverUnit = coverUnitsStart + Long.numberOfTrailingZeros(coverBits);
+			// Positions along a cover line are base line indexes
+			long outside = solver.getCandidatePositions(coverUnit, digit) & ~baseLines;
+			for (; outside != 0; outside &= outside - 1) {
+				eliminated |= solver.eliminate(layout.unitCells[coverUnit][Long.numberOfTrailingZeros(outside)], digit);
+			}
+		}
+		return eliminated;
+	}
+}
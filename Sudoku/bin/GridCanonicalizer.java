@@ -0,0 +1,440 @@
+import java.util.Arrays;
+
+/**
+ * Maps a grid to a canonical representative of all the grids it can be turned into by the transformations that
+ * keep a sudoku valid: transposing, reordering the bands (and stacks), reordering the rows within a band (and the
+ * columns within a stack), and relabeling the digits. Grids that are such transformations of each other get the
+ * same canonical form, and the Transform returned along with it maps solutions back and forth.
+ *
+ * The canonical form is found in two steps. First the pattern of givens (which cells are filled in, regardless of
+ * their digits) is minimized row by row: starting from every orientation and column order, the first row is the
+ * one with the smallest pattern over all of them, and only the arrangements reaching that pattern go on to pick
+ * their second row, and so on. Then, among the arrangements left at the end (the symmetries of the pattern), the
+ * one whose digits, relabeled in order of first appearance, read the smallest is picked.
+ *
+ * For grids with a very symmetric pattern (e.g. almost empty ones) too many arrangements would tie along the
+ * way, so at most MAX_ARRANGEMENTS of them are followed. The result is still a valid transformation of the grid,
+ * just not always the same one for all the equivalent grids.
+ *
+ * The number of column orders grows as (blockSize!)^(blockSize + 1), so only grids up to 9x9 are supported (see
+ * isSupported()). A canonicalizer reuses its scratch arrays for every grid, and is not to be shared by threads.
+ */
+public class GridCanonicalizer {
+	// Upper bound on the arrangements followed at once, see the class comment
+	private static final int MAX_ARRANGEMENTS = 1 << 13;
+	private static final int MAX_SUPPORTED_BLOCK_SIZE = 3;
+
+	private final GridLayout layout;
+	private final int blockSize;
+	private final int size;
+	private final int numColumnOrders; // Orders of the stacks times the orders of the columns in each stack
+	// [columnOrder * blockSize + position] -> stack at the position, and index into orders for its columns
+	private final int[] columnOrderStacks;
+	private final int[] columnOrderOrders;
+	private final int[][] orders; // Every ordering of 0..blockSize-1
+
+	// Scratch for the grid being canonicalized
+	private int[] cells;
+	// [orientation][row][stack][order] -> pattern of the row in the stack with its columns in that order, first
+	// cell highest
+	private final int[][][][] stackBits;
+	private final int[] stackMasks;
+	// Arrangements still in the running: orientation * numColumnOrders + column order, and the rows chosen so far
+	private int[] arrangementColumns;
+	private int[] arrangementRows;
+	private int[] nextArrangementColumns;
+	private int[] nextArrangementRows;
+	private int numArrangements;
+	private final int[] cellMap;
+	private final int[] digitMap;
+	private final int[] relabeledCells;
+	private final int[] bestCellMap;
+	private final int[] bestDigitMap;
+	private final int[] bestCells;
+
+	public GridCanonicalizer(GridLayout layout) throws IllegalArgumentException {
+		if (!isSupported(layout)) {
+			throw new IllegalArgumentException("Unsupported grid size for canonicalizing:" + layout.size);
+		}
+		this.layout = layout;
+		blockSize = layout.blockSize;
+		size = layout.size;
+		orders = allOrders(blockSize);
+		int numColumnOrders = orders.length;
+		for (int stack = 0; stack < blockSize; stack++) {
+			numColumnOrders *= orders.length;
+		}
+		this.numColumnOrders = numColumnOrders;
+		columnOrderStacks = new int[numColumnOrders * blockSize];
+		columnOrderOrders = new int[numColumnOrders * blockSize];
+		for (int columnOrder = 0; columnOrder < numColumnOrders; columnOrder++) {
+			// The lowest digits (base blockSize!) pick the column orders of the stack positions, the highest the
+			// order of the stacks
+			int remainder = columnOrder;
+			for (int position = blockSize - 1; position >= 0; position--) {
+				columnOrderOrders[columnOrder * blockSize + position] = remainder % orders.length;
+				remainder /= orders.length;
+			}
+			for (int position = 0; position < blockSize; position++) {
+				columnOrderStacks[columnOrder * blockSize + position] = orders[remainder][position];
+			}
+		}
+		stackBits = new int[2][size][blockSize][orders.length];
+		stackMasks = new int[blockSize];
+		arrangementColumns = new int[MAX_ARRANGEMENTS];
+		arrangementRows = new int[MAX_ARRANGEMENTS * size];
+		nextArrangementColumns = new int[MAX_ARRANGEMENTS];
+		nextArrangementRows = new int[MAX_ARRANGEMENTS * size];
+		cellMap = new int[layout.numCells];
+		digitMap = new int[size + 1];
+		relabeledCells = new int[layout.numCells];
+		bestCellMap = new int[layout.numCells];
+		bestDigitMap = new int[size + 1];
+		bestCells = new int[layout.numCells];
+	}
+
+	public static boolean isSupported(GridLayout layout) {
+		return layout.blockSize <= MAX_SUPPORTED_BLOCK_SIZE;
+	}
+
+	/**
+	 * Every ordering of 0..n-1, in lexicographic order
+	 */
+	private static int[][] allOrders(int n) {
+		int numOrders = 1;
+		for (int idx = 2; idx <= n; idx++) {
+			numOrders *= idx;
+		}
+		int[][] allOrders = new int[numOrders][];
+		int[] order = new int[n];
+		for (int idx = 0; idx < n; idx++) {
+			order[idx] = idx;
+		}
+		for (int idx = 0; idx < numOrders; idx++) {
+			allOrders[idx] = order.clone();
+			nextPermutation(order);
+		}
+		return allOrders;
+	}
+
+	/**
+	 * Rearranges the values into the next greater permutation, or back into ascending order after the greatest one
+	 */
+	private static void nextPermutation(int[] values) {
+		int pivot = values.length - 2;
+		while (pivot >= 0 && values[pivot] >= values[pivot + 1]) {
+			pivot--;
+		}
+		if (pivot >= 0) {
+			int successor = values.length - 1;
+			while (values[successor] <= values[pivot]) {
+				successor--;
+			}
+			swap(values, pivot, successor);
+		}
+		for (int low = pivot + 1, high = values.length - 1; low < high; low++, high--) {
+			swap(values, low, high);
+		}
+	}
+
+	private static void swap(int[] values, int first, int second) {
+		int value = values[first];
+		values[first] = values[second];
+		values[second] = value;
+	}
+
+	/**
+	 * Returns the transformation of the flat grid into its canonical form
+	 */
+	public Transform canonicalize(int[] cells) throws IllegalArgumentException {
+		if (cells.length != layout.numCells) {
+			throw new IllegalArgumentException("Grid size does not match the canonicalizer:" + cells.length);
+		}
+		this.cells = cells;
+		computeStackBits();
+
+		chooseFirstRow();
+		for (int level = 1; level < size; level++) {
+			chooseRow(level);
+		}
+
+		boolean hasBest = false;
+		for (int arrangement = 0; arrangement < numArrangements; arrangement++) {
+			if (relabel(arrangement, hasBest)) {
+				hasBest = true;
+			}
+		}
+		return new Transform(bestCellMap.clone(), bestDigitMap.clone(), bestCells.clone());
+	}
+
+	/**
+	 * Cell of the grid at the row and column, as seen in the orientation (1 for transposed)
+	 */
+	private int getCell(int orientation, int row, int col) {
+		return (orientation == 1) ? col * size + row : row * size + col;
+	}
+
+	private void computeStackBits() {
+		for (int orientation = 0; orientation < 2; orientation++) {
+			for (int row = 0; row < size; row++) {
+				for (int stack = 0; stack < blockSize; stack++) {
+					for (int idx = 0; idx < orders.length; idx++) {
+						int bits = 0;
+						for (int position = 0; position < blockSize; position++) {
+							int col = stack * blockSize + orders[idx][position];
+							bits = (bits << 1) | ((cells[getCell(orientation, row, col)] != 0) ? 1 : 0);
+						}
+						stackBits[orientation][row][stack][idx] = bits;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Pattern of the row in the orientation and column order of the arrangement
+	 */
+	private int getRowMask(int columns, int row) {
+		int orientation = columns / numColumnOrders;
+		int base = (columns % numColumnOrders) * blockSize;
+		int mask = 0;
+		for (int position = 0; position < blockSize; position++) {
+			mask = (mask << blockSize)
+				| stackBits[orientation][row][columnOrderStacks[base + position]][columnOrderOrders[base + position]];
+		}
+		return mask;
+	}
+
+	/**
+	 * Smallest pattern the row can have over all the column orders: the filled cells at the end of each stack, and
+	 * the stacks by number of filled cells
+	 */
+	private int getBestRowMask(int orientation, int row) {
+		for (int stack = 0; stack < blockSize; stack++) {
+			int best = Integer.MAX_VALUE;
+			for (int idx = 0; idx < orders.length; idx++) {
+				best = Math.min(best, stackBits[orientation][row][stack][idx]);
+			}
+			stackMasks[stack] = best;
+		}
+		Arrays.sort(stackMasks);
+		int mask = 0;
+		for (int stack = 0; stack < blockSize; stack++) {
+			mask = (mask << blockSize) | stackMasks[stack];
+		}
+		return mask;
+	}
+
+	/**
+	 * Starts the arrangements from the rows with the smallest possible pattern, in every orientation and column
+	 * order that gives it to them
+	 */
+	private void chooseFirstRow() {
+		int bestMask = Integer.MAX_VALUE;
+		for (int orientation = 0; orientation < 2; orientation++) {
+			for (int row = 0; row < size; row++) {
+				bestMask = Math.min(bestMask, getBestRowMask(orientation, row));
+			}
+		}
+		numArrangements = 0;
+		for (int orientation = 0; orientation < 2; orientation++) {
+			for (int row = 0; row < size; row++) {
+				if (getBestRowMask(orientation, row) != bestMask) {
+					continue;
+				}
+				for (int stackOrder = 0; stackOrder < orders.length; stackOrder++) {
+					addFirstRowArrangements(orientation, row, bestMask, stackOrder, 0, stackOrder);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the column orders that start with the stack order and give the row the best pattern, going through the
+	 * stack positions from the left, and the column orders within the stack at each that match that part of it
+	 */
+	private void addFirstRowArrangements(int orientation, int row, int bestMask, int stackOrder, int position,
+			int columnOrder) {
+		if (position == blockSize) {
+			if (numArrangements < MAX_ARRANGEMENTS) {
+				arrangementColumns[numArrangements] = orientation * numColumnOrders + columnOrder;
+				arrangementRows[numArrangements * size] = row;
+				numArrangements++;
+			}
+			return;
+		}
+		int stack = orders[stackOrder][position];
+		int part = (bestMask >> ((blockSize - 1 - position) * blockSize)) & ((1 << blockSize) - 1);
+		for (int idx = 0; idx < orders.length; idx++) {
+			if (stackBits[orientation][row][stack][idx] == part) {
+				addFirstRowArrangements(orientation, row, bestMask, stackOrder, position + 1,
+					columnOrder * orders.length + idx);
+			}
+		}
+	}
+
+	/**
+	 * Extends every arrangement by each row that may go at the level (the first row of a band comes from a band not
+	 * used yet, the others from the band of that first row), and keeps the ones with the smallest pattern there
+	 */
+	private void chooseRow(int level) {
+		int positionInBand = level % blockSize;
+		int numNext = 0;
+		int bestMask = Integer.MAX_VALUE;
+		for (int arrangement = 0; arrangement < numArrangements; arrangement++) {
+			int rowsStart = arrangement * size;
+			int columns = arrangementColumns[arrangement];
+			for (int row = 0; row < size; row++) {
+				if (!mayGoAt(rowsStart, level, positionInBand, row)) {
+					continue;
+				}
+				int mask = getRowMask(columns, row);
+				if (mask > bestMask) {
+					continue;
+				}
+				if (mask < bestMask) {
+					bestMask = mask;
+					numNext = 0;
+				}
+				if (numNext == MAX_ARRANGEMENTS) {
+					continue;
+				}
+				nextArrangementColumns[numNext] = columns;
+				System.arraycopy(arrangementRows, rowsStart, nextArrangementRows, numNext * size, level);
+				nextArrangementRows[numNext * size + level] = row;
+				numNext++;
+			}
+		}
+		int[] swapColumns = arrangementColumns;
+		arrangementColumns = nextArrangementColumns;
+		nextArrangementColumns = swapColumns;
+		int[] swapRows = arrangementRows;
+		arrangementRows = nextArrangementRows;
+		nextArrangementRows = swapRows;
+		numArrangements = numNext;
+	}
+
+	private boolean mayGoAt(int rowsStart, int level, int positionInBand, int row) {
+		int band = row / blockSize;
+		if (positionInBand == 0) {
+			for (int previous = 0; previous < level; previous += blockSize) {
+				if (arrangementRows[rowsStart + previous] / blockSize == band) {
+					return false;
+				}
+			}
+			return true;
+		}
+		int bandStart = level - positionInBand;
+		if (arrangementRows[rowsStart + bandStart] / blockSize != band) {
+			return false;
+		}
+		for (int previous = bandStart; previous < level; previous++) {
+			if (arrangementRows[rowsStart + previous] == row) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Relabels the digits of the arrangement in order of first appearance, and keeps it if it reads smaller than
+	 * the best so far (if there is one). Returns true if it was kept.
+	 */
+	private boolean relabel(int arrangement, boolean hasBest) {
+		int columns = arrangementColumns[arrangement];
+		int orientation = columns / numColumnOrders;
+		int base = (columns % numColumnOrders) * blockSize;
+		Arrays.fill(digitMap, 0);
+		int nextLabel = 1;
+		int comparison = hasBest ? 0 : -1;
+		int canonicalCell = 0;
+		for (int level = 0; level < size; level++) {
+			int row = arrangementRows[arrangement * size + level];
+			for (int position = 0; position < blockSize; position++) {
+				int stack = columnOrderStacks[base + position];
+				int[] order = orders[columnOrderOrders[base + position]];
+				for (int idx = 0; idx < blockSize; idx++, canonicalCell++) {
+					int cell = getCell(orientation, row, stack * blockSize + order[idx]);
+					int value = cells[cell];
+					int label = 0;
+					if (value != 0) {
+						label = digitMap[value];
+						if (label == 0) {
+							label = nextLabel++;
+							digitMap[value] = label;
+						}
+					}
+					cellMap[canonicalCell] = cell;
+					relabeledCells[canonicalCell] = label;
+					if (comparison == 0 && label != bestCells[canonicalCell]) {
+						comparison = (label < bestCells[canonicalCell]) ? -1 : 1;
+						if (comparison > 0) {
+							return false;
+						}
+					}
+				}
+			}
+		}
+		if (comparison >= 0) {
+			return false;
+		}
+		// Digits missing from the grid take the labels left over, in ascending order
+		for (int digit = 1; digit <= size; digit++) {
+			if (digitMap[digit] == 0) {
+				digitMap[digit] = nextLabel++;
+			}
+		}
+		System.arraycopy(cellMap, 0, bestCellMap, 0, cellMap.length);
+		System.arraycopy(digitMap, 0, bestDigitMap, 0, digitMap.length);
+		System.arraycopy(relabeledCells, 0, bestCells, 0, relabeledCells.length);
+		return true;
+	}
+
+	/**
+	 * A transformation of a grid into its canonical form: the cell of the grid that goes to each canonical cell,
+	 * and the label each digit gets
+	 */
+	public static class Transform {
+		private final int[] cellMap; // Canonical cell -> cell of the grid
+		private final int[] digitMap; // Digit of the grid -> canonical digit, 0 -> 0
+		private final int[] inverseDigitMap;
+		private final int[] canonicalCells;
+
+		Transform(int[] cellMap, int[] digitMap, int[] canonicalCells) {
+			this.cellMap = cellMap;
+			this.digitMap = digitMap;
+			this.canonicalCells = canonicalCells;
+			inverseDigitMap = new int[digitMap.length];
+			for (int digit = 0; digit < digitMap.length; digit++) {
+				inverseDigitMap[digitMap[digit]] = digit;
+			}
+		}
+
+		/**
+		 * The canonical form of the grid. Not a copy.
+		 */
+		public int[] getCanonicalCells() {
+			return canonicalCells;
+		}
+
+		/**
+		 * Applies the transformation to another grid of the same cells, e.g. a solution of the grid
+		 */
+		public int[] toCanonical(int[] cells) {
+			int[] canonical = new int[cellMap.length];
+			for (int cell = 0; cell < cellMap.length; cell++) {
+				canonical[cell] = digitMap[cells[cellMap[cell]]];
+			}
+			return canonical;
+		}
+
+		/**
+		 * Undoes the transformation of a canonical grid, e.g. a solution of the canonical form, into cells
+		 */
+		public void fromCanonical(int[] canonical, int[] cells) {
+			for (int cell = 0; cell < cellMap.length; cell++) {
+				cells[cellMap[cell]] = inverseDigitMap[canonical[cell]];
+			}
+		}
+	}
+}
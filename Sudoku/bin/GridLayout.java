@@ -0,0 +1,135 @@
+/**
+ * Precomputed index tables for a grid stored as a flat array of cells in row-major order (cell = row * size + col).
+ *
+ * The grid has 3 * size units: units 0..size-1 are the rows, size..2*size-1 the columns and 2*size..3*size-1 the
+ * blocks, each block numbered in row-major order. Every cell belongs to exactly one unit of each kind, and its
+ * peers are the other cells sharing at least one unit with it. Looking these up in the tables replaces the
+ * division/modulo arithmetic of the Helper methods in the solver loops.
+ *
+ * A grid of blocks of n x n cells has n^2 rows and columns and n^2 digits. Block sizes 2 to MAX_BLOCK_SIZE are
+ * supported, i.e. grids from 4x4 to 64x64, as the candidates of a cell or of a unit have to fit in the single
+ * 64 bit word of a CandidateArray. The layout of each size is built once and shared.
+ */
+public class GridLayout {
+	public static final int ROW_UNIT = 0;
+	public static final int COL_UNIT = 1;
+	public static final int BLOCK_UNIT = 2;
+	public static final int UNITS_PER_CELL = 3;
+
+	public static final int MIN_BLOCK_SIZE = 2;
+	public static final int MAX_BLOCK_SIZE = 8;
+
+	private static final GridLayout[] LAYOUTS = new GridLayout[MAX_BLOCK_SIZE + 1];
+	public static final GridLayout STANDARD = forBlockSize(3);
+
+	final int blockSize;
+	final int size;
+	final int numCells;
+	final int numUnits;
+	final int numPeers;
+
+	final int[] rowOf;
+	final int[] colOf;
+	final int[] blockOf;
+
+	// unitCells[unit][position] is the cell at that position of the unit
+	final int[][] unitCells;
+	// cellUnits[cell][kind] is the row, column or block unit of the cell (kind is ROW_UNIT, COL_UNIT or BLOCK_UNIT)
+	final int[][] cellUnits;
+	// positionInUnit[cell][kind] is the position of the cell within its row, column or block unit
+	final int[][] positionInUnit;
+	// peers[cell] are the cells sharing a row, column or block with the cell, excluding the cell itself
+	final int[][] peers;
+
+	private GridLayout(int blockSize) {
+		this.blockSize = blockSize;
+		size = blockSize * blockSize;
+		numCells = size * size;
+		numUnits = UNITS_PER_CELL * size;
+		// (size - 1) in the row, (size - 1) in the column, and the rest of the block not already counted
+		numPeers = 2 * (size - 1) + (blockSize - 1) * (blockSize - 1);
+
+		rowOf = new int[numCells];
+		colOf = new int[numCells];
+		blockOf = new int[numCells];
+		unitCells = new int[numUnits][size];
+		cellUnits = new int[numCells][UNITS_PER_CELL];
+		positionInUnit = new int[numCells][UNITS_PER_CELL];
+		peers = new int[numCells][numPeers];
+
+		for (int cell = 0; cell < numCells; cell++) {
+			int row = cell / size;
+			int col = cell % size;
+			int block = Helper.getBlockIndexFromRowCol(row, col, size, blockSize);
+			int indexInBlock = Helper.getCellIndexWithinBlockFromRowCol(row, col, size, blockSize);
+			rowOf[cell] = row;
+			colOf[cell] = col;
+			blockOf[cell] = block;
+
+			cellUnits[cell][ROW_UNIT] = row;
+			cellUnits[cell][COL_UNIT] = size + col;
+			cellUnits[cell][BLOCK_UNIT] = 2 * size + block;
+			positionInUnit[cell][ROW_UNIT] = col;
+			positionInUnit[cell][COL_UNIT] = row;
+			positionInUnit[cell][BLOCK_UNIT] = indexInBlock;
+			for (int kind = 0; kind < UNITS_PER_CELL; kind++) {
+				unitCells[cellUnits[cell][kind]][positionInUnit[cell][kind]] = cell;
+			}
+		}
+
+		for (int cell = 0; cell < numCells; cell++) {
+			int numPeersFound = 0;
+			for (int other = 0; other < numCells; other++) {
+				if (other != cell && (rowOf[other] == rowOf[cell] || colOf[other] == colOf[cell]
+						|| blockOf[other] == blockOf[cell])) {
+					peers[cell][numPeersFound++] = other;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the layout for blocks of blockSize x blockSize cells, or null if the size is not supported
+	 */
+	public static synchronized GridLayout forBlockSize(int blockSize) {
+		if (blockSize < MIN_BLOCK_SIZE || blockSize > MAX_BLOCK_SIZE) {
+			return null;
+		}
+		if (LAYOUTS[blockSize] == null) {
+			LAYOUTS[blockSize] = new GridLayout(blockSize);
+		}
+		return LAYOUTS[blockSize];
+	}
+
+	/**
+	 * Returns the layout of the grids with the given number of rows (and columns), or null if there is none
+	 */
+	public static GridLayout forSize(int size) {
+		int blockSize = (int) Math.round(Math.sqrt(size));
+		return (blockSize * blockSize == size) ? forBlockSize(blockSize) : null;
+	}
+
+	/**
+	 * Returns the layout of the grids with the given total number of cells, or null if there is none
+	 */
+	public static GridLayout forNumCells(int numCells) {
+		int size = (int) Math.round(Math.sqrt(numCells));
+		return (size * size == numCells) ? forSize(size) : null;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	public int getNumCells() {
+		return numCells;
+	}
+
+	public int getCell(int row, int col) {
+		return row * size + col;
+	}
+}
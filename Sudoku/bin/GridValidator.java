@@ -0,0 +1,140 @@
+import java.util.Arrays;
+
+/**
+ * Checks that no row, column or block of a grid holds the same digit twice, and that every cell holds 0 (unsolved)
+ * or a digit of the grid. Empty cells are allowed, so givens and partly solved grids are checked as well as
+ * solutions.
+ *
+ * The grid is gone through once in row-major order, keeping a bitmask of the digits seen so far in each unit: the
+ * row in a local, the columns and blocks in arrays owned by the validator and cleared for every grid. So a
+ * validator allocates nothing once created, and can be reused for any number of grids of its size, but not by
+ * several threads at the same time.
+ *
+ * Rather than printing anything, validate() returns an error code, and the validator keeps where the error was
+ * (see getErrorIndex()).
+ */
+public class GridValidator {
+	public static final int VALID = 0;
+	public static final int DUPLICATE_IN_ROW = 1;
+	public static final int DUPLICATE_IN_COLUMN = 2;
+	public static final int DUPLICATE_IN_BLOCK = 3;
+	public static final int VALUE_OUT_OF_RANGE = 4;
+
+	private final GridLayout layout;
+	private final long[] columnMasks;
+	private final long[] blockMasks;
+	private int errorIndex = -1;
+
+	public GridValidator(GridLayout layout) {
+		this.layout = layout;
+		columnMasks = new long[layout.size];
+		blockMasks = new long[layout.size];
+	}
+
+	public GridLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * Checks the grid, which has to be of the size of this validator. Returns VALID or the error code of the
+	 * first problem found.
+	 */
+	public int validate(Sudoku sudoku) throws IllegalArgumentException {
+		if (sudoku.getLayout() != layout) {
+			throw new IllegalArgumentException("Grid size does not match the validator:" + sudoku.getSize());
+		}
+		return validate(sudoku.getCells(), 0);
+	}
+
+	/**
+	 * Checks the flat grid in row-major order that starts at offset in the buffer. Returns VALID or the error code
+	 * of the first problem found, going through the cells in order.
+	 */
+	public int validate(int[] buffer, int offset) {
+		int size = layout.size;
+		Arrays.fill(columnMasks, 0);
+		Arrays.fill(blockMasks, 0);
+		errorIndex = -1;
+		int cell = 0;
+		for (int row = 0; row < size; row++) {
+			long rowMask = 0;
+			for (int col = 0; col < size; col++, cell++) {
+				int value = buffer[offset + cell];
+				if (value == 0) {
+					continue;
+				}
+				if (value < 0 || value > size) {
+					errorIndex = cell;
+					return VALUE_OUT_OF_RANGE;
+				}
+				long bit = 1L << (value - 1);
+				if ((rowMask & bit) != 0) {
+					errorIndex = row;
+					return DUPLICATE_IN_ROW;
+				}
+				if ((columnMasks[col] & bit) != 0) {
+					errorIndex = col;
+					return DUPLICATE_IN_COLUMN;
+				}
+				int block = layout.blockOf[cell];
+				if ((blockMasks[block] & bit) != 0) {
+					errorIndex = block;
+					return DUPLICATE_IN_BLOCK;
+				}
+				rowMask |= bit;
+				columnMasks[col] |= bit;
+				blockMasks[block] |= bit;
+			}
+		}
+		return VALID;
+	}
+
+	/**
+	 * Checks numGrids flat grids packed one after the other in the buffer, and stores the error code of each one
+	 * in errorCodes (unless it is null). Returns the number of valid grids.
+	 */
+	public int validateAll(int[] buffer, int numGrids, int[] errorCodes) throws IllegalArgumentException {
+		if ((long) numGrids * layout.numCells > buffer.length) {
+			throw new IllegalArgumentException("Buffer too small for the grids:" + numGrids);
+		}
+		int numValid = 0;
+		for (int grid = 0, offset = 0; grid < numGrids; grid++, offset += layout.numCells) {
+			int errorCode = validate(buffer, offset);
+			if (errorCode == VALID) {
+				numValid++;
+			}
+			if (errorCodes != null) {
+				errorCodes[grid] = errorCode;
+			}
+		}
+		return numValid;
+	}
+
+	/**
+	 * Where the last validate() found the problem: the row, column or block for a duplicate, or the cell of a
+	 * value out of range. -1 if the grid was valid.
+	 */
+	public int getErrorIndex() {
+		return errorIndex;
+	}
+
+	/**
+	 * Describes the error code and the index that goes with it, e.g. "row 3"
+	 */
+	public static String describe(int errorCode, int errorIndex) {
+		switch (errorCode) {
+		case VALID:
+			return "valid";
+		case DUPLICATE_IN_ROW:
+			return "row " + errorIndex;
+		case DUPLICATE_IN_COLUMN:
+			return "column " + errorIndex;
+		case DUPLICATE_IN_BLOCK:
+			return "block " + errorIndex;
+		case VALUE_OUT_OF_RANGE:
+			return "cell " + errorIndex + " (value out of range)";
+		default:
+			return "unknown error " + errorCode;
+		}
+	}
+}
@@ -1,88 +1,38 @@
-import java.util.List;
-import java.util.Set;
-import java.util.HashSet;
-import java.util.ArrayList;
-
 public class Helper {
+	// The validators of isValidFormation(), one per thread and grid size, so that checking a grid allocates nothing
+	private static final ThreadLocal<GridValidator[]> VALIDATORS = new ThreadLocal<GridValidator[]>() {
+		@Override
+		protected GridValidator[] initialValue() {
+			// Indexed by block size
+			return new GridValidator[GridLayout.MAX_BLOCK_SIZE + 1];
+		}
+	};
+
 	private Helper() {
 	}
 
-	private static final int SIZE = 9;
 	public static boolean isValidFormation(Sudoku sudoku) {
-		boolean isValid = true;
-
-		// Check validity of each row. Note: a row might be incomplete but still valid SO FAR
-		for (int row = 0; row < SIZE; row++) {
-			CandidateArray candidateArray = new CandidateArray(SIZE);
-			int numberOfValuesNotSet = 0;
-			for (int col = 0; col < SIZE; col++) {
-				int value = sudoku.getValue(row, col);
-				if (value == 0) {
-					numberOfValuesNotSet++;
-					continue;
-				}
-				candidateArray.reSetBit(value);
-			}
-			if (!candidateArray.isGivenNumBitsSet(numberOfValuesNotSet)) {
-				isValid = false;
-				System.out.println("Not valid on row " + row);
-				return isValid;
-			}
-		}	
-
-		// Check validity of each column
-		for (int col = 0; col < SIZE; col++) {
-			CandidateArray candidateArray = new CandidateArray(SIZE);
-			int numberOfValuesNotSet = 0;
-			for (int row = 0; row < SIZE; row++) {
-				int value = sudoku.getValue(row, col);
-				if (value == 0) {
-					numberOfValuesNotSet++;
-					continue;
-				}
-				candidateArray.reSetBit(value);
-			}
-			if (!candidateArray.isGivenNumBitsSet(numberOfValuesNotSet)) {
-				isValid = false;
-				System.out.println("Not valid on column " + col);
-				return isValid;
-			}
-		}	
-
-		// Check validity of each 3x3 block
-		for (int blockIndex = 0; blockIndex < SIZE; blockIndex++) {
-			CandidateArray candidateArray = new CandidateArray(SIZE);
-			int numberOfValuesNotSet = 0;
-			for (int row = blockIndex / 3 * 3; row < (blockIndex + 3) / 3 * 3; row++) {
-				for (int col = (blockIndex % 3) * 3; col < (blockIndex % 3) * 3 + 3; col++) {
-					int value = sudoku.getValue(row, col);
-					if (value == 0) {
-						numberOfValuesNotSet++;
-						continue;
-					}
-					candidateArray.reSetBit(value);
-				}
-			}	
-			if (!candidateArray.isGivenNumBitsSet(numberOfValuesNotSet)) {
-				isValid = false;
-				System.out.println("Not valid on block " + blockIndex);
-				return isValid;
-			}
-		}	
-		return isValid;
+		return isValidFormation(sudoku, true);
 	}
 
 	/**
-	 * Takes union of the values of the sets in the given lists, and returns true if the size of 
-	 * the union is same as the size of the input list of sets
+	 * Checks that no row, column or block holds the same digit twice, see GridValidator. If printReason is set,
+	 * prints the first offending row, column, block or cell to STDOUT. The check is made by a validator kept for
+	 * the calling thread and the size of the grid, so apart from the first call nothing gets allocated.
 	 */
-	public static boolean isSetListComplete(List<Set<Integer>> listOfSets) {
-		Set<Integer> unionSet = new HashSet<Integer>();
-
-		for (Set<Integer> candidateSet : listOfSets) {
-			unionSet.addAll(candidateSet);
+	public static boolean isValidFormation(Sudoku sudoku, boolean printReason) {
+		GridLayout layout = sudoku.getLayout();
+		GridValidator[] validators = VALIDATORS.get();
+		GridValidator validator = validators[layout.blockSize];
+		if (validator == null) {
+			validator = new GridValidator(layout);
+			validators[layout.blockSize] = validator;
 		}
-		return unionSet.size() == listOfSets.size();
+		int errorCode = validator.validate(sudoku);
+		if (errorCode != GridValidator.VALID && printReason) {
+			System.out.println("Not valid on " + GridValidator.describe(errorCode, validator.getErrorIndex()));
+		}
+		return errorCode == GridValidator.VALID;
 	}
 
 	/**
@@ -164,34 +114,4 @@ public class Helper {
 		}
 		return (row % blockRowSize) * blockRowSize + (col % blockRowSize);	
 	}
-
-	/**
-	 * For the given value (that is not set yet), and the block index in the grid, return the candidate rows for that
-	 * value in the block. The rows indexes start from 0 and run up to blockSize.
-	 */
-	// TBD: Use primitives instead of generics
-	public static Set<Integer> getCandidateRowsForDigitInBlock(CandidateArray[][] candidateArray, int blockIndex, int value, int blockSize) {
-		int[] bitsSetForBlock = candidateArray[blockIndex][value].getListOfBitsSet();
-		Set<Integer> rowsForBlock = new HashSet<Integer>();
-		for (int val : bitsSetForBlock) {
-			rowsForBlock.add(getRowForCellIndexInBlock(val - 1, blockSize));
-			System.out.print(getRowForCellIndexInBlock(val - 1, blockSize));
-		}
-		return rowsForBlock;
-	}
-
-	/**
-	 * For the given value (that is not set yet), and the block index in the grid, return the candidate columns for that
-	 * value in the block. The column indexes start from 0 and run up to blockSize.
-	 */
-	// TBD: Use primitives instead of generics
-	public static Set<Integer> getCandidateColsForDigitInBlock(CandidateArray[][] candidateArray, int blockIndex, int value, int blockSize) {
-		int[] bitsSetForBlock = candidateArray[blockIndex][value].getListOfBitsSet();
-		Set<Integer> colsForBlock = new HashSet<Integer>();
-		for (int val : bitsSetForBlock) {
-			colsForBlock.add(getColForCellIndexInBlock(val - 1, blockSize));
-			System.out.print(getColForCellIndexInBlock(val - 1, blockSize));
-		}
-		return colsForBlock;
-	}	
 }
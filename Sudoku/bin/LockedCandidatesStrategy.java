@@ -0,0 +1,108 @@
+/**
+ * Locked candidates, in both directions:
+ * - Pointing: if the candidate cells for a digit in a block all lie on one row (or column), the digit has to go
+ *   on that row within the block, so it is no longer a candidate for the rest of the row outside the block.
+ * - Claiming: if the candidate cells for a digit in a row (or column) all lie within one block, the digit has to
+ *   go there, so it is no longer a candidate for the rest of the block.
+ *
+ * Both are checked by masking the candidate positions of the digit in the unit, without any allocation.
+ */
+public class LockedCandidatesStrategy implements DeductionStrategy {
+	private final int cost;
+
+	public LockedCandidatesStrategy(int cost) {
+		this.cost = cost;
+	}
+
+	@Override
+	public String getName() {
+		return "Locked candidates";
+	}
+
+	@Override
+	public int getCost() {
+		return cost;
+	}
+
+	@Override
+	public boolean apply(SudokuSolver solver) {
+		GridLayout layout = solver.getLayout();
+		boolean eliminated = false;
+		for (int digit = 1; digit <= layout.size && !solver.pollCancelled(); digit++) {
+			for (int block = 0; block < layout.size; block++) {
+				eliminated |= applyPointing(solver, layout, 2 * layout.size + block, digit);
+			}
+			for (int line = 0; line < 2 * layout.size; line++) {
+				eliminated |= applyClaiming(solver, layout, line, digit);
+			}
+		}
+		return eliminated;
+	}
+
+	/**
+	 * Positions within a block are numbered in row-major order, so the positions on one row of the block are
+	 * consecutive bits, and the positions on one column are blockSize bits apart
+	 */
+	private boolean applyPointing(SudokuSolver solver, GridLayout layout, int blockUnit, int digit) {
+		long positions = solver.getCandidatePositions(blockUnit, digit);
+		if (Long.bitCount(positions) < 2) {
+			return false;
+		}
+		int blockSize = layout.blockSize;
+		long blockRowMask = (1L << blockSize) - 1;
+		long blockColMask = 0;
+		for (int row = 0; row < blockSize; row++) {
+			blockColMask |= 1L << (row * blockSize);
+		}
+
+		for (int offset = 0; offset < blockSize; offset++) {
+			if ((positions & ~(blockRowMask << (offset * blockSize))) == 0) {
+				int cell = layout.unitCells[blockUnit][offset * blockSize];
+				return eliminateOutsideBlock(solver, layout, layout.cellUnits[cell][GridLayout.ROW_UNIT], blockUnit, digit);
+			}
+			if ((positions & ~(blockColMask << offset)) == 0) {
+				int cell = layout.unitCells[blockUnit][offset];
+				return eliminateOutsideBlock(solver, layout, layout.cellUnits[cell][GridLayout.COL_UNIT], blockUnit, digit);
+			}
+		}
+		return false;
+	}
+
+	private boolean eliminateOutsideBlock(SudokuSolver solver, GridLayout layout, int lineUnit, int blockUnit, int digit) {
+		boolean eliminated = false;
+		for (int cell : layout.unitCells[lineUnit]) {
+			if (layout.cellUnits[cell][GridLayout.BLOCK_UNIT] != blockUnit) {
+				eliminated |= solver.eliminate(cell, digit);
+			}
+		}
+		return eliminated;
+	}
+
+	/**
+	 * Positions along a row or a column are the column or row indexes, so the positions within one block are
+	 * blockSize consecutive bits
+	 */
+	private boolean applyClaiming(SudokuSolver solver, GridLayout layout, int lineUnit, int digit) {
+		long positions = solver.getCandidatePositions(lineUnit, digit);
+		if (Long.bitCount(positions) < 2) {
+			return false;
+		}
+		int blockSize = layout.blockSize;
+		long segmentMask = (1L << blockSize) - 1;
+		int lineKind = (lineUnit < layout.size) ? GridLayout.ROW_UNIT : GridLayout.COL_UNIT;
+		for (int segment = 0; segment < blockSize; segment++) {
+			if ((positions & ~(segmentMask << (segment * blockSize))) != 0) {
+				continue;
+			}
+			int blockUnit = layout.cellUnits[layout.unitCells[lineUnit][segment * blockSize]][GridLayout.BLOCK_UNIT];
+			boolean eliminated = false;
+			for (int cell : layout.unitCells[blockUnit]) {
+				if (layout.cellUnits[cell][lineKind] != lineUnit) {
+					eliminated |= solver.eliminate(cell, digit);
+				}
+			}
+			return eliminated;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,137 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a puzzle file (one puzzle per line, see BatchSolver) through memory mapping, without going through
+ * Strings or a Scanner.
+ *
+ * The file is split into chunks that always end right after a newline, so each chunk holds whole puzzles and
+ * can be handed to a different worker. A chunk maps only its own byte range when it is opened, which keeps
+ * every mapping well below the 2GB limit of a MappedByteBuffer however large the file is. The digits are
+ * parsed straight from the mapped bytes into the flat grid of the caller, cell by cell with
+ * PuzzleFormat.parseCell(), as by the other readers of the format.
+ */
+public class MappedPuzzleReader implements AutoCloseable {
+	public static final int PUZZLE_READ = 0;
+	public static final int PUZZLE_MALFORMED = 1;
+	public static final int END_OF_CHUNK = 2;
+
+	// Number of bytes looked at in one go while searching for the end of a line at a chunk boundary
+	private static final int BOUNDARY_SCAN_SIZE = 256;
+
+	private final FileChannel channel;
+	private final long fileSize;
+
+	public MappedPuzzleReader(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		fileSize = channel.size();
+	}
+
+	/**
+	 * Returns the offset just past the first newline at or after the given offset, or the file size if there is
+	 * no newline left
+	 */
+	private long findNextLineStart(long offset) throws IOException {
+		ByteBuffer scanBuffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+		while (offset < fileSize) {
+			scanBuffer.clear();
+			int numRead = channel.read(scanBuffer, offset);
+			if (numRead <= 0) {
+				break;
+			}
+			for (int idx = 0; idx < numRead; idx++) {
+				if (scanBuffer.get(idx) == '\n') {
+					return offset + idx + 1;
+				}
+			}
+			offset += numRead;
+		}
+		return fileSize;
+	}
+
+	/**
+	 * Splits the file into chunks of about chunkSize bytes, in file order, each ending on a puzzle boundary
+	 */
+	public List<Chunk> split(long chunkSize) throws IOException {
+		List<Chunk> chunks = new ArrayList<Chunk>();
+		long start = 0;
+		while (start < fileSize) {
+			long end = (fileSize - start <= chunkSize) ? fileSize : findNextLineStart(start + chunkSize - 1);
+			chunks.add(new Chunk(start, end));
+			start = end;
+		}
+		return chunks;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * A range of whole lines of the file. Not thread-safe: each chunk is meant to be consumed by a single worker.
+	 */
+	public class Chunk {
+		private final long start;
+		private final long end;
+		private MappedByteBuffer buffer;
+
+		Chunk(long start, long end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * Maps the byte range of the chunk. Needs to be called before the first nextPuzzle().
+		 */
+		public void open() throws IOException {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		}
+
+		/**
+		 * Drops the reference to the mapping, so that it can be unmapped once garbage collected
+		 */
+		public void release() {
+			buffer = null;
+		}
+
+		/**
+		 * Parses the next line into cells (flat, row-major, 0 for unsolved). Returns PUZZLE_READ, PUZZLE_MALFORMED
+		 * if the line is not one valid character per cell up to its comment, if any (cells are then left in an
+		 * unspecified state), or END_OF_CHUNK.
+		 */
+		public int nextPuzzle(int[] cells) {
+			if (!buffer.hasRemaining()) {
+				return END_OF_CHUNK;
+			}
+			int numCells = 0;
+			boolean malformed = false;
+			boolean inComment = false;
+			while (buffer.hasRemaining()) {
+				byte ch = buffer.get();
+				if (ch == '\n') {
+					break;
+				}
+				if (ch == PuzzleFormat.COMMENT_START) {
+					inComment = true;
+				}
+				if (ch == '\r' || inComment) {
+					continue;
+				}
+				int value = PuzzleFormat.parseCell(ch, 9);
+				if (numCells == cells.length || value < 0) {
+					malformed = true;
+				} else {
+					cells[numCells++] = value;
+				}
+			}
+			return (malformed || numCells != cells.length) ? PUZZLE_MALFORMED : PUZZLE_READ;
+		}
+	}
+}
@@ -0,0 +1,21 @@
+/**
+ * Listener that ignores all the steps. Used by SudokuSolver unless another listener is set.
+ */
+public final class NoOpSolveListener implements SolveListener {
+	public static final NoOpSolveListener INSTANCE = new NoOpSolveListener();
+
+	private NoOpSolveListener() {
+	}
+
+	@Override
+	public void onPlacement(Sudoku sudoku, int cell, int digit) {
+	}
+
+	@Override
+	public void onElimination(Sudoku sudoku, int cell, int digit) {
+	}
+
+	@Override
+	public void onIterationEnd(Sudoku sudoku, int iteration) {
+	}
+}
@@ -0,0 +1,112 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The speculative search of SudokuSolver.solveParallel(). Once the rule passes stall, every candidate digit of the
+ * guess cell (the unsolved cell with the fewest candidates) is explored by a task of its own, on a copy of the
+ * solver, and so on down to MAX_FORK_DEPTH guesses, below which each task goes on with the sequential search.
+ *
+ * All the branches share the one search: the first branch to find a solution keeps it and cancels the search,
+ * and every other branch gives up at its next search node (see SudokuSolver.search()) or before it starts.
+ */
+class ParallelSearch {
+	// Guesses that get a task per candidate; the branches search sequentially from there on
+	private static final int MAX_FORK_DEPTH = 3;
+
+	private volatile boolean cancelled;
+	private SudokuSolver winner; // Guarded by this
+	private final AtomicLong numNodesExplored = new AtomicLong();
+
+	boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Searches the pool for a solution from the state of the solver, which is only read. Returns the copy of the
+	 * solver holding the first solution found, or null if there is none.
+	 */
+	SudokuSolver run(ForkJoinPool pool, final SudokuSolver root) {
+		pool.invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				forkBranches(root, 1);
+			}
+		});
+		synchronized (this) {
+			return winner;
+		}
+	}
+
+	/**
+	 * Number of search nodes explored by all the branches
+	 */
+	long getNodesExplored() {
+		return numNodesExplored.get();
+	}
+
+	/**
+	 * Runs a branch for every candidate of the guess cell of the solver, and waits for all of them. The solver
+	 * is left alone until they are done, so the branches can copy it concurrently.
+	 */
+	private void forkBranches(SudokuSolver solver, int depth) {
+		int guessCell = solver.findGuessCell();
+		List<BranchTask> branches = new ArrayList<BranchTask>();
+		for (long candidates = solver.getCandidateDigits(guessCell); candidates != 0; candidates &= candidates - 1) {
+			branches.add(new BranchTask(solver, guessCell, Long.numberOfTrailingZeros(candidates) + 1, depth));
+		}
+		RecursiveAction.invokeAll(branches);
+	}
+
+	/**
+	 * Keeps the solved branch unless another one got there first, and stops all the others
+	 */
+	private synchronized void offerSolution(SudokuSolver branch) {
+		if (winner == null) {
+			winner = branch;
+		}
+		cancelled = true;
+	}
+
+	/**
+	 * Explores one guess: the digit in the cell, on a copy of the parent solver
+	 */
+	private class BranchTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final SudokuSolver parent;
+		private final int guessCell;
+		private final int digit;
+		private final int depth;
+
+		BranchTask(SudokuSolver parent, int guessCell, int digit, int depth) {
+			this.parent = parent;
+			this.guessCell = guessCell;
+			this.digit = digit;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute() {
+			if (cancelled) {
+				return;
+			}
+			SudokuSolver branch = new SudokuSolver(parent, ParallelSearch.this);
+			branch.guess(guessCell, digit);
+			if (depth < MAX_FORK_DEPTH && !branch.isDeadEnd() && !branch.getSudoku().isSolved()) {
+				numNodesExplored.incrementAndGet();
+				forkBranches(branch, depth + 1);
+				return;
+			}
+			boolean solved = branch.search();
+			numNodesExplored.addAndGet(branch.getNodesExplored());
+			if (solved) {
+				offerSolution(branch);
+			}
+		}
+	}
+}
@@ -0,0 +1,17 @@
+/**
+ * Clears a placed digit from the candidates of the peers of its cell, the first step of propagating a placement in
+ * SudokuSolver. The candidates are the flat array of the candidate digits of the cells (bit digit - 1), in which a
+ * filled-in cell has none left, so every peer that still has the bit of the digit loses it.
+ *
+ * By default the solver does this itself, one peer at a time. A PeerElimination is a backend doing it a whole
+ * vector of peers at a time: VectorPeerElimination in the 'vector' directory, on the jdk.incubator.vector API,
+ * which is only there when that module is (see SudokuSolver.setVectorBackend()).
+ */
+interface PeerElimination {
+	/**
+	 * Clears digitBit from candidates[peer] for every one of the peers that has it, and writes those peers to
+	 * eliminated, in the order of peers: as the peer if it is left with two candidates or more, or as -(peer + 1)
+	 * if it is left with one or none. Returns the number of peers written.
+	 */
+	int eliminate(long[] candidates, int[] peers, long digitBit, int[] eliminated);
+}
@@ -0,0 +1,144 @@
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * The formats puzzles are stored and exchanged in, besides the whitespace separated integers read by SudokuSolver:
+ *
+ * TEXT: one puzzle per line, one character per cell in row-major order, '1'..'9' for the givens and '0' or '.'
+ * for the unsolved cells (the format read by BatchSolver). 82 bytes per 9x9 puzzle with the newline. A tab after
+ * the cells starts a comment that runs to the end of the line and is ignored, e.g. the tier PuzzleGenerator writes.
+ *
+ * PACKED: 4 bits per cell in row-major order, two cells per byte with the first one in the high nibble, and the
+ * last nibble left 0 if the number of cells is odd. No separators: every puzzle takes packedSize() bytes, 41 for a
+ * 9x9 puzzle, half the size of TEXT and about a quarter of the whitespace separated integers, and a corpus can be
+ * split on any multiple of that.
+ *
+ * Both hold grids of up to 9x9; see PuzzleReader and PuzzleWriter for reading and writing them as streams.
+ */
+public final class PuzzleFormat {
+	public static final int TEXT = 0;
+	public static final int PACKED = 1;
+
+	// Ends the cells of a TEXT line, see above
+	public static final char COMMENT_START = '\t';
+
+	private PuzzleFormat() {
+	}
+
+	/**
+	 * Returns true if grids of the layout can be written in the formats, i.e. every digit fits in one character
+	 * and in 4 bits
+	 */
+	public static boolean isSupported(GridLayout layout) {
+		return layout.size <= 9;
+	}
+
+	/**
+	 * Number of bytes a puzzle of numCells cells takes in the PACKED format
+	 */
+	public static int packedSize(int numCells) {
+		return (numCells + 1) / 2;
+	}
+
+	/**
+	 * Value of a cell written as the character ch in the TEXT format: the digit for '1' up to the highest digit
+	 * of the grid (maxValue), 0 for '0' and '.', or -1 if ch does not stand for a cell. Every reader of the format
+	 * goes through this, whatever it reads the lines from.
+	 */
+	public static int parseCell(int ch, int maxValue) {
+		if (ch >= '1' && ch <= '0' + maxValue) {
+			return ch - '0';
+		}
+		return (ch == '0' || ch == '.') ? 0 : -1;
+	}
+
+	/**
+	 * Parses the TEXT line (without its newline) into cells. Returns false, leaving the cells in an unspecified
+	 * state, if the line does not have exactly one valid character per cell before its comment, if any.
+	 */
+	public static boolean parseLine(CharSequence line, int[] cells) {
+		int numChars = 0;
+		while (numChars < line.length() && line.charAt(numChars) != COMMENT_START) {
+			numChars++;
+		}
+		if (numChars != cells.length) {
+			return false;
+		}
+		for (int cell = 0; cell < cells.length; cell++) {
+			cells[cell] = parseCell(line.charAt(cell), 9);
+			if (cells[cell] < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Packs the cells into packedSize() bytes of the buffer, starting at offset
+	 */
+	public static void pack(int[] cells, byte[] buffer, int offset) throws IllegalArgumentException {
+		for (int cell = 0; cell < cells.length; cell += 2) {
+			int high = cells[cell];
+			int low = (cell + 1 < cells.length) ? cells[cell + 1] : 0;
+			if (high < 0 || high > 9 || low < 0 || low > 9) {
+				throw new IllegalArgumentException("Value does not fit the format at cell " + cell);
+			}
+			buffer[offset + cell / 2] = (byte) ((high << 4) | low);
+		}
+	}
+
+	/**
+	 * Unpacks packedSize() bytes of the buffer, starting at offset, into the cells. Returns false if a value is
+	 * greater than maxValue or the padding nibble is not 0; the cells are then in an unspecified state.
+	 */
+	public static boolean unpack(byte[] buffer, int offset, int[] cells, int maxValue) {
+		for (int cell = 0; cell < cells.length; cell += 2) {
+			int packed = buffer[offset + cell / 2] & 0xFF;
+			int high = packed >>> 4;
+			int low = packed & 0x0F;
+			if (high > maxValue || low > maxValue) {
+				return false;
+			}
+			cells[cell] = high;
+			if (cell + 1 < cells.length) {
+				cells[cell + 1] = low;
+			} else if (low != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Usage: java PuzzleFormat pack|unpack inputFile outputFile
+	 * Converts a corpus of 9x9 puzzles from TEXT to PACKED (pack) or back (unpack), puzzle N of the output being
+	 * puzzle N of the input. Stops at the first malformed puzzle, with an IOException giving its line (TEXT) or
+	 * its number (PACKED), the output holding the puzzles before it.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 3 || !(args[0].equals("pack") || args[0].equals("unpack"))) {
+			System.out.println("Usage: java PuzzleFormat pack|unpack inputFile outputFile");
+			return;
+		}
+		boolean packing = args[0].equals("pack");
+		GridLayout layout = GridLayout.STANDARD;
+		int[] cells = new int[layout.numCells];
+		long numPuzzles = 0;
+		try (PuzzleReader reader = new PuzzleReader(new FileInputStream(args[1]), packing ? TEXT : PACKED, layout);
+				PuzzleWriter writer = new PuzzleWriter(new FileOutputStream(args[2]), packing ? PACKED : TEXT,
+					layout)) {
+			int status;
+			while ((status = reader.nextPuzzle(cells)) != PuzzleReader.END_OF_INPUT) {
+				if (status == PuzzleReader.PUZZLE_MALFORMED) {
+					// Skipping it would shift every puzzle after it against the input
+					throw new IOException("Malformed puzzle " + (packing ? "on line " : "number ") + (numPuzzles + 1)
+						+ " of " + args[1]);
+				}
+				writer.writePuzzle(cells);
+				numPuzzles++;
+			}
+		}
+		System.err.println("Converted " + numPuzzles + " puzzles");
+	}
+}
@@ -0,0 +1,235 @@
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates minimal 9x9 puzzles with a unique solution, in parallel, and grades each one by the hardest deduction
+ * SudokuSolver needs to solve it.
+ *
+ * A puzzle starts from a random solution: the three blocks on the diagonal are independent of each other, so they
+ * get random permutations of the digits, and the solver fills in the rest. The givens are then taken out one at a
+ * time in random order, putting back every one whose removal leaves more than one solution (see
+ * SudokuSolver.countSolutions()). Taking out givens only ever adds solutions, so a given that had to stay once
+ * has to stay for good, and a single pass leaves a minimal puzzle.
+ *
+ * The tier of a puzzle is "Basic" if singles and block-line interactions solve it, the name of the most expensive
+ * strategy the solver had to escalate to (e.g. "X-Wing"), or "Search" if it had to guess.
+ *
+ * Every puzzle is generated from its own Random, seeded from the overall seed and its index, so a run is
+ * reproducible whatever the number of threads.
+ */
+public class PuzzleGenerator {
+	public static final String BASIC_TIER = "Basic";
+	public static final String SEARCH_TIER = "Search";
+
+	// Below this many puzzles a task generates them itself instead of splitting further
+	private static final int PUZZLES_PER_TASK = 4;
+	private static final long SEED_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	private static final GridLayout LAYOUT = GridLayout.STANDARD;
+
+	private final ForkJoinPool pool;
+	private final long seed;
+
+	/**
+	 * A generated puzzle (flat, 0 for the cells left out), its tier and the time it took to generate and grade
+	 */
+	static class GeneratedPuzzle {
+		final int[] cells;
+		final String tier;
+		final long elapsedNanos;
+
+		GeneratedPuzzle(int[] cells, String tier, long elapsedNanos) {
+			this.cells = cells;
+			this.tier = tier;
+			this.elapsedNanos = elapsedNanos;
+		}
+	}
+
+	public PuzzleGenerator(int parallelism, long seed) {
+		pool = new ForkJoinPool(parallelism);
+		this.seed = seed;
+	}
+
+	/**
+	 * Returns a random complete grid
+	 */
+	static int[] generateSolution(Random random) {
+		int[] cells = new int[LAYOUT.numCells];
+		for (int diagonalBlock = 0; diagonalBlock < LAYOUT.blockSize; diagonalBlock++) {
+			int blockUnit = 2 * LAYOUT.size + diagonalBlock * (LAYOUT.blockSize + 1);
+			int[] digits = shuffledRange(random, LAYOUT.size);
+			for (int position = 0; position < LAYOUT.size; position++) {
+				cells[LAYOUT.unitCells[blockUnit][position]] = digits[position] + 1;
+			}
+		}
+		SudokuSolver solver = new SudokuSolver(cells);
+		solver.solve();
+		return solver.getSudoku().toCellArray();
+	}
+
+	/**
+	 * Returns 0..n-1 in random order
+	 */
+	private static int[] shuffledRange(Random random, int n) {
+		int[] values = new int[n];
+		for (int idx = 0; idx < n; idx++) {
+			values[idx] = idx;
+		}
+		for (int idx = n - 1; idx > 0; idx--) {
+			int other = random.nextInt(idx + 1);
+			int value = values[idx];
+			values[idx] = values[other];
+			values[other] = value;
+		}
+		return values;
+	}
+
+	/**
+	 * Takes givens out of the solution in random order for as long as the puzzle stays unique, and returns the
+	 * minimal puzzle left
+	 */
+	static int[] removeGivens(int[] solution, Random random) {
+		int[] puzzle = solution.clone();
+		for (int cell : shuffledRange(random, LAYOUT.numCells)) {
+			int value = puzzle[cell];
+			puzzle[cell] = 0;
+			if (SolverPool.acquire(puzzle).countSolutions() != SudokuSolver.UNIQUE_SOLUTION) {
+				puzzle[cell] = value;
+			}
+		}
+		return puzzle;
+	}
+
+	/**
+	 * Returns the tier of the puzzle, see the class comment
+	 */
+	static String grade(int[] puzzle) {
+		SudokuSolver solver = new SudokuSolver(puzzle);
+		solver.solve();
+		if (solver.getNodesExplored() > 1) {
+			return SEARCH_TIER;
+		}
+		DeductionStrategy hardestStrategy = solver.getHardestStrategy();
+		return (hardestStrategy == null) ? BASIC_TIER : hardestStrategy.getName();
+	}
+
+	/**
+	 * The tiers from the easiest to the hardest
+	 */
+	public static String[] getTiers() {
+		DeductionStrategy[] strategies = SudokuSolver.getDefaultStrategies();
+		String[] tiers = new String[strategies.length + 2];
+		tiers[0] = BASIC_TIER;
+		for (int idx = 0; idx < strategies.length; idx++) {
+			tiers[idx + 1] = strategies[idx].getName();
+		}
+		tiers[tiers.length - 1] = SEARCH_TIER;
+		return tiers;
+	}
+
+	GeneratedPuzzle generatePuzzle(int index) {
+		long startTime = System.nanoTime();
+		Random random = new Random(seed + index * SEED_MULTIPLIER);
+		int[] puzzle = removeGivens(generateSolution(random), random);
+		String tier = grade(puzzle);
+		return new GeneratedPuzzle(puzzle, tier, System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Generates puzzles [start, end), splitting the range in halves until it is small enough
+	 */
+	private class GenerateTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final GeneratedPuzzle[] puzzles;
+		private final int start;
+		private final int end;
+
+		GenerateTask(GeneratedPuzzle[] puzzles, int start, int end) {
+			this.puzzles = puzzles;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start <= PUZZLES_PER_TASK) {
+				for (int idx = start; idx < end; idx++) {
+					puzzles[idx] = generatePuzzle(idx);
+				}
+				return;
+			}
+			int mid = (start + end) >>> 1;
+			invokeAll(new GenerateTask(puzzles, start, mid), new GenerateTask(puzzles, mid, end));
+		}
+	}
+
+	/**
+	 * Generates numPuzzles puzzles in parallel
+	 */
+	GeneratedPuzzle[] generate(int numPuzzles) {
+		GeneratedPuzzle[] puzzles = new GeneratedPuzzle[numPuzzles];
+		pool.invoke(new GenerateTask(puzzles, 0, numPuzzles));
+		return puzzles;
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Usage: java PuzzleGenerator numPuzzles [seed]
+	 * Writes one puzzle per line to STDOUT, in the format read by BatchSolver, followed by a tab and its tier,
+	 * which the readers of the format skip as a comment (see PuzzleFormat.TEXT).
+	 * Reports on STDERR how many puzzles of each tier were generated, and at what rate.
+	 */
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.out.println("Usage: java PuzzleGenerator numPuzzles [seed]");
+			return;
+		}
+		int numPuzzles = Integer.parseInt(args[0]);
+		long seed = (args.length > 1) ? Long.parseLong(args[1]) : System.nanoTime();
+
+		PuzzleGenerator generator = new PuzzleGenerator(Runtime.getRuntime().availableProcessors(), seed);
+		long startTime = System.nanoTime();
+		GeneratedPuzzle[] puzzles;
+		try {
+			puzzles = generator.generate(numPuzzles);
+		} finally {
+			generator.shutdown();
+		}
+		double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+
+		String[] tiers = getTiers();
+		int[] numPuzzlesPerTier = new int[tiers.length];
+		long[] nanosPerTier = new long[tiers.length];
+		StringBuilder output = new StringBuilder();
+		for (GeneratedPuzzle puzzle : puzzles) {
+			for (int value : puzzle.cells) {
+				output.append((char) ('0' + value));
+			}
+			output.append('\t').append(puzzle.tier).append('\n');
+			for (int tier = 0; tier < tiers.length; tier++) {
+				if (tiers[tier].equals(puzzle.tier)) {
+					numPuzzlesPerTier[tier]++;
+					nanosPerTier[tier] += puzzle.elapsedNanos;
+				}
+			}
+		}
+		System.out.print(output);
+
+		System.err.printf("Generated %d puzzles in %.3f s (%.1f puzzles/sec), seed %d%n", numPuzzles, elapsedSeconds,
+			numPuzzles / elapsedSeconds, seed);
+		for (int tier = 0; tier < tiers.length; tier++) {
+			if (numPuzzlesPerTier[tier] == 0) {
+				continue;
+			}
+			// The rate of a tier is its share of the overall rate; the time per puzzle is on a single thread
+			System.err.printf("%-18s %8d puzzles %10.1f puzzles/sec %8.2f ms/puzzle%n", tiers[tier],
+				numPuzzlesPerTier[tier], numPuzzlesPerTier[tier] / elapsedSeconds,
+				nanosPerTier[tier] / 1e6 / numPuzzlesPerTier[tier]);
+		}
+	}
+}
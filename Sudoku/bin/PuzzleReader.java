@@ -0,0 +1,110 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads puzzles one after the other from a stream in the TEXT or PACKED format (see PuzzleFormat), straight into
+ * the flat grid of the caller, e.g. the buffer handed to SolverPool.acquire(). The stream is read in blocks into
+ * a buffer of the reader, so there is no need to wrap it in a BufferedInputStream, and nothing is allocated per
+ * puzzle.
+ */
+public class PuzzleReader implements AutoCloseable {
+	public static final int PUZZLE_READ = 0;
+	public static final int PUZZLE_MALFORMED = 1;
+	public static final int END_OF_INPUT = 2;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final InputStream input;
+	private final int format;
+	private final GridLayout layout;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position;
+	private int limit;
+	private final byte[] packedPuzzle;
+
+	public PuzzleReader(InputStream input, int format, GridLayout layout) throws IllegalArgumentException {
+		if (format != PuzzleFormat.TEXT && format != PuzzleFormat.PACKED) {
+			throw new IllegalArgumentException("Unknown puzzle format:" + format);
+		}
+		if (!PuzzleFormat.isSupported(layout)) {
+			throw new IllegalArgumentException("Unsupported grid size for the puzzle formats:" + layout.size);
+		}
+		this.input = input;
+		this.format = format;
+		this.layout = layout;
+		packedPuzzle = new byte[PuzzleFormat.packedSize(layout.numCells)];
+	}
+
+	/**
+	 * Returns the next byte of the stream, or -1 at its end
+	 */
+	private int nextByte() throws IOException {
+		if (position == limit) {
+			limit = input.read(buffer, 0, buffer.length);
+			position = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return -1;
+			}
+		}
+		return buffer[position++] & 0xFF;
+	}
+
+	/**
+	 * Reads the next puzzle into cells (flat, row-major, 0 for unsolved), which must have the number of cells of
+	 * the layout. Returns PUZZLE_READ, PUZZLE_MALFORMED if the puzzle does not follow the format (cells are then
+	 * left in an unspecified state), or END_OF_INPUT. A PACKED stream that ends part way through a puzzle throws
+	 * an EOFException.
+	 */
+	public int nextPuzzle(int[] cells) throws IOException {
+		if (cells.length != layout.numCells) {
+			throw new IllegalArgumentException("Grid size does not match the reader:" + cells.length);
+		}
+		return (format == PuzzleFormat.TEXT) ? nextLine(cells) : nextPacked(cells);
+	}
+
+	private int nextLine(int[] cells) throws IOException {
+		int ch = nextByte();
+		if (ch == -1) {
+			return END_OF_INPUT;
+		}
+		int numCells = 0;
+		boolean malformed = false;
+		boolean inComment = false;
+		for (; ch != -1 && ch != '\n'; ch = nextByte()) {
+			if (ch == PuzzleFormat.COMMENT_START) {
+				inComment = true;
+			}
+			if (ch == '\r' || inComment) {
+				continue;
+			}
+			int value = PuzzleFormat.parseCell(ch, layout.size);
+			if (numCells == cells.length || value < 0) {
+				malformed = true;
+			} else {
+				cells[numCells++] = value;
+			}
+		}
+		return (malformed || numCells != cells.length) ? PUZZLE_MALFORMED : PUZZLE_READ;
+	}
+
+	private int nextPacked(int[] cells) throws IOException {
+		for (int idx = 0; idx < packedPuzzle.length; idx++) {
+			int value = nextByte();
+			if (value == -1) {
+				if (idx == 0) {
+					return END_OF_INPUT;
+				}
+				throw new EOFException("Stream ends inside a packed puzzle");
+			}
+			packedPuzzle[idx] = (byte) value;
+		}
+		return PuzzleFormat.unpack(packedPuzzle, 0, cells, layout.size) ? PUZZLE_READ : PUZZLE_MALFORMED;
+	}
+
+	@Override
+	public void close() throws IOException {
+		input.close();
+	}
+}
@@ -0,0 +1,78 @@
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes puzzles (or solutions) one after the other to a stream in the TEXT or PACKED format (see PuzzleFormat),
+ * straight from flat grids. The bytes go through a buffer of the writer, so there is no need to wrap the stream
+ * in a BufferedOutputStream, but the writer has to be flushed or closed at the end.
+ */
+public class PuzzleWriter implements AutoCloseable {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final OutputStream output;
+	private final int format;
+	private final GridLayout layout;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position;
+	private final int puzzleSize; // Bytes per puzzle, with the newline of a TEXT line
+
+	public PuzzleWriter(OutputStream output, int format, GridLayout layout) throws IllegalArgumentException {
+		if (format != PuzzleFormat.TEXT && format != PuzzleFormat.PACKED) {
+			throw new IllegalArgumentException("Unknown puzzle format:" + format);
+		}
+		if (!PuzzleFormat.isSupported(layout)) {
+			throw new IllegalArgumentException("Unsupported grid size for the puzzle formats:" + layout.size);
+		}
+		this.output = output;
+		this.format = format;
+		this.layout = layout;
+		puzzleSize = (format == PuzzleFormat.TEXT) ? layout.numCells + 1 : PuzzleFormat.packedSize(layout.numCells);
+	}
+
+	/**
+	 * Writes the cells (flat, row-major, 0 for unsolved) as the next puzzle. Unsolved cells are written as '0' in
+	 * the TEXT format. A puzzle rejected with an IllegalArgumentException leaves nothing behind, so the writer can
+	 * go on with the next one.
+	 */
+	public void writePuzzle(int[] cells) throws IOException {
+		if (cells.length != layout.numCells) {
+			throw new IllegalArgumentException("Grid size does not match the writer:" + cells.length);
+		}
+		for (int cell = 0; cell < cells.length; cell++) {
+			if (cells[cell] < 0 || cells[cell] > layout.size) {
+				throw new IllegalArgumentException("Value does not fit the format at cell " + cell);
+			}
+		}
+		if (buffer.length - position < puzzleSize) {
+			flushBuffer();
+		}
+		if (format == PuzzleFormat.PACKED) {
+			PuzzleFormat.pack(cells, buffer, position);
+			position += puzzleSize;
+			return;
+		}
+		for (int cell = 0; cell < cells.length; cell++) {
+			buffer[position++] = (byte) ('0' + cells[cell]);
+		}
+		buffer[position++] = '\n';
+	}
+
+	private void flushBuffer() throws IOException {
+		output.write(buffer, 0, position);
+		position = 0;
+	}
+
+	public void flush() throws IOException {
+		flushBuffer();
+		output.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flushBuffer();
+		} finally {
+			output.close();
+		}
+	}
+}
@@ -0,0 +1,531 @@
+import java.util.Arrays;
+
+/**
+ * A compact CDCL (conflict driven clause learning) SAT solver, for the SAT backend of SudokuSolver (see
+ * SudokuCnf), but usable on any CNF formula.
+ *
+ * Variables are numbered from 1, and literals are given as in DIMACS: v for the variable being true, -v for it
+ * being false. The solver follows the usual MiniSat design: two watched literals per clause for the unit
+ * propagation, first-UIP conflict analysis with the learned clause minimized against the reasons of its literals,
+ * non-chronological backjumping, VSIDS decisions (a heap of the variables by activity, bumped in every conflict
+ * and decaying over time) with phase saving, and restarts following the Luby sequence.
+ *
+ * Clauses live in one int array, each as its size followed by its literals, and are referred to by their offset
+ * in it. Learned clauses are kept for good, which is fine for the few thousand conflicts a Sudoku takes.
+ */
+public class SatSolver {
+	public static final int UNSATISFIABLE = 0;
+	public static final int SATISFIABLE = 1;
+	public static final int UNKNOWN = 2; // The solve was cancelled, see solve(CancellationToken)
+
+	private static final int NO_REASON = -1;
+	private static final int NO_CONFLICT = -1;
+	private static final double ACTIVITY_DECAY = 0.95;
+	private static final double ACTIVITY_LIMIT = 1e100;
+	private static final int RESTART_BASE = 100; // Conflicts per unit of the Luby sequence
+	private static final int CANCEL_CHECK_MASK = 0xFF; // The cancellation token is checked every 256 steps
+
+	private final int numVariables;
+	private int[] clauses = new int[1 << 12]; // Size, then literals, of every clause one after the other
+	private int clausesEnd;
+	private int[][] watches; // Indexed by literal: the clauses it is one of the two first literals of
+	private int[] numWatches;
+	private final int[] values; // Indexed by variable: 1 true, -1 false, 0 unassigned
+	private final int[] levels; // Indexed by variable: decision level it was assigned at
+	private final int[] reasons; // Indexed by variable: clause that implied it, NO_REASON for a decision
+	private final boolean[] savedPhases;
+	private final boolean[] seen; // Scratch of analyze()
+	private final int[] trail; // Assigned literals in order
+	private int trailSize;
+	private int propagationHead;
+	private int[] levelStarts = new int[16]; // Indexed by decision level from 1: trail size when it started
+	private int decisionLevel;
+	private boolean unsatisfiable;
+	private final boolean[] model; // Indexed by variable, as of the last SATISFIABLE solve()
+
+	private final double[] activities;
+	private double activityIncrement = 1;
+	private final int[] heap; // Unassigned variables (at least), by activity, highest first
+	private final int[] heapPositions; // Indexed by variable, -1 if not in the heap
+	private int heapSize;
+
+	private int[] learned = new int[16]; // Scratch of analyze()
+	private int learnedSize;
+	private long numConflicts;
+	private long numDecisions;
+
+	public SatSolver(int numVariables) {
+		this.numVariables = numVariables;
+		int numLiterals = 2 * (numVariables + 1);
+		watches = new int[numLiterals][];
+		numWatches = new int[numLiterals];
+		values = new int[numVariables + 1];
+		levels = new int[numVariables + 1];
+		reasons = new int[numVariables + 1];
+		savedPhases = new boolean[numVariables + 1];
+		seen = new boolean[numVariables + 1];
+		trail = new int[numVariables + 1];
+		model = new boolean[numVariables + 1];
+		activities = new double[numVariables + 1];
+		heap = new int[numVariables + 1];
+		heapPositions = new int[numVariables + 1];
+		Arrays.fill(heapPositions, -1);
+		for (int variable = 1; variable <= numVariables; variable++) {
+			heapInsert(variable);
+		}
+	}
+
+	public int getNumVariables() {
+		return numVariables;
+	}
+
+	/**
+	 * Internal literal of a DIMACS one: 2v for v, 2v + 1 for -v
+	 */
+	private static int toLiteral(int dimacsLiteral) {
+		return (dimacsLiteral > 0) ? 2 * dimacsLiteral : 2 * -dimacsLiteral + 1;
+	}
+
+	/**
+	 * 1 if the literal is true, -1 if it is false, 0 if its variable is unassigned
+	 */
+	private int valueOf(int literal) {
+		int value = values[literal >> 1];
+		return ((literal & 1) == 0) ? value : -value;
+	}
+
+	/**
+	 * Adds a clause (DIMACS literals, see the class comment). Can also be called between two solve(), e.g. to
+	 * exclude the solution found. Returns false if the formula is now known to be unsatisfiable.
+	 */
+	public boolean addClause(int... dimacsLiterals) throws IllegalArgumentException {
+		cancelUntil(0);
+		if (unsatisfiable) {
+			return false;
+		}
+		int[] literals = new int[dimacsLiterals.length];
+		int size = 0;
+		for (int dimacsLiteral : dimacsLiterals) {
+			if (dimacsLiteral == 0 || Math.abs(dimacsLiteral) > numVariables) {
+				throw new IllegalArgumentException("No such variable:" + dimacsLiteral);
+			}
+			int literal = toLiteral(dimacsLiteral);
+			int value = valueOf(literal);
+			if (value > 0) {
+				return true; // Satisfied at level 0
+			}
+			if (value < 0) {
+				continue; // False at level 0
+			}
+			boolean duplicate = false;
+			for (int idx = 0; idx < size; idx++) {
+				if (literals[idx] == literal) {
+					duplicate = true;
+				} else if (literals[idx] == (literal ^ 1)) {
+					return true; // Tautology
+				}
+			}
+			if (!duplicate) {
+				literals[size++] = literal;
+			}
+		}
+		if (size == 0) {
+			unsatisfiable = true;
+			return false;
+		}
+		if (size == 1) {
+			assign(literals[0], NO_REASON);
+			return true;
+		}
+		storeClause(literals, size);
+		return true;
+	}
+
+	/**
+	 * Stores the clause and watches its first two literals. Returns its offset.
+	 */
+	private int storeClause(int[] literals, int size) {
+		if (clausesEnd + size + 1 > clauses.length) {
+			clauses = Arrays.copyOf(clauses, Math.max(2 * clauses.length, clausesEnd + size + 1));
+		}
+		int clause = clausesEnd;
+		clauses[clause] = size;
+		System.arraycopy(literals, 0, clauses, clause + 1, size);
+		clausesEnd += size + 1;
+		watch(literals[0], clause);
+		watch(literals[1], clause);
+		return clause;
+	}
+
+	private void watch(int literal, int clause) {
+		int[] list = watches[literal];
+		if (list == null) {
+			list = new int[4];
+			watches[literal] = list;
+		} else if (numWatches[literal] == list.length) {
+			list = Arrays.copyOf(list, 2 * list.length);
+			watches[literal] = list;
+		}
+		list[numWatches[literal]++] = clause;
+	}
+
+	private void assign(int literal, int reason) {
+		int variable = literal >> 1;
+		values[variable] = ((literal & 1) == 0) ? 1 : -1;
+		levels[variable] = decisionLevel;
+		reasons[variable] = reason;
+		trail[trailSize++] = literal;
+	}
+
+	/**
+	 * Propagates the assignments on the trail not propagated yet. Returns the clause that became false, or
+	 * NO_CONFLICT.
+	 */
+	private int propagate() {
+		while (propagationHead < trailSize) {
+			int falseLiteral = trail[propagationHead++] ^ 1;
+			int[] list = watches[falseLiteral];
+			int count = numWatches[falseLiteral];
+			int kept = 0;
+			for (int idx = 0; idx < count; idx++) {
+				int clause = list[idx];
+				// Keep the false literal second, so that the first one is the other watch
+				if (clauses[clause + 1] == falseLiteral) {
+					clauses[clause + 1] = clauses[clause + 2];
+					clauses[clause + 2] = falseLiteral;
+				}
+				int first = clauses[clause + 1];
+				if (valueOf(first) > 0) {
+					list[kept++] = clause;
+					continue;
+				}
+				int size = clauses[clause];
+				boolean moved = false;
+				for (int position = 3; position <= size; position++) {
+					int literal = clauses[clause + position];
+					if (valueOf(literal) >= 0) {
+						clauses[clause + 2] = literal;
+						clauses[clause + position] = falseLiteral;
+						watch(literal, clause);
+						moved = true;
+						break;
+					}
+				}
+				if (moved) {
+					continue;
+				}
+				list[kept++] = clause;
+				if (valueOf(first) < 0) {
+					// Conflict: keep the rest of the watches as they are
+					for (idx++; idx < count; idx++) {
+						list[kept++] = list[idx];
+					}
+					numWatches[falseLiteral] = kept;
+					propagationHead = trailSize;
+					return clause;
+				}
+				assign(first, clause);
+			}
+			numWatches[falseLiteral] = kept;
+		}
+		return NO_CONFLICT;
+	}
+
+	/**
+	 * Derives the first-UIP clause of the conflict into learned (the asserting literal first, then the one of
+	 * the highest level below) and returns the level to backjump to
+	 */
+	private int analyze(int conflict) {
+		learnedSize = 1; // learned[0] is the asserting literal, set at the end
+		int numAtCurrentLevel = 0;
+		int literal = -1;
+		int trailIndex = trailSize - 1;
+		int clause = conflict;
+		do {
+			int size = clauses[clause];
+			// The first literal of a reason is the one it implied, already accounted for
+			for (int position = (literal == -1) ? 1 : 2; position <= size; position++) {
+				int other = clauses[clause + position];
+				int variable = other >> 1;
+				if (seen[variable] || levels[variable] == 0) {
+					continue;
+				}
+				seen[variable] = true;
+				bumpActivity(variable);
+				if (levels[variable] == decisionLevel) {
+					numAtCurrentLevel++;
+				} else {
+					addLearned(other);
+				}
+			}
+			while (!seen[trail[trailIndex] >> 1]) {
+				trailIndex--;
+			}
+			literal = trail[trailIndex--];
+			clause = reasons[literal >> 1];
+			seen[literal >> 1] = false;
+			numAtCurrentLevel--;
+		} while (numAtCurrentLevel > 0);
+		learned[0] = literal ^ 1;
+
+		// Drop the literals implied by the others (or by level 0 facts) alone, moving them past the kept ones
+		// rather than overwriting them, as their seen flags are cleared below
+		int kept = 1;
+		for (int idx = 1; idx < learnedSize; idx++) {
+			if (!isImpliedBySeen(learned[idx])) {
+				int swap = learned[kept];
+				learned[kept++] = learned[idx];
+				learned[idx] = swap;
+			}
+		}
+		for (int idx = 1; idx < learnedSize; idx++) {
+			seen[learned[idx] >> 1] = false;
+		}
+		learnedSize = kept;
+
+		int backjumpLevel = 0;
+		for (int idx = 1; idx < learnedSize; idx++) {
+			int level = levels[learned[idx] >> 1];
+			if (level > backjumpLevel) {
+				backjumpLevel = level;
+				int swap = learned[1];
+				learned[1] = learned[idx];
+				learned[idx] = swap;
+			}
+		}
+		return backjumpLevel;
+	}
+
+	private void addLearned(int literal) {
+		if (learnedSize == learned.length) {
+			learned = Arrays.copyOf(learned, 2 * learned.length);
+		}
+		learned[learnedSize++] = literal;
+	}
+
+	/**
+	 * Returns true if every other literal of the reason of the literal is in the learned clause or false at
+	 * level 0, so that the literal adds nothing to the clause
+	 */
+	private boolean isImpliedBySeen(int literal) {
+		int reason = reasons[literal >> 1];
+		if (reason == NO_REASON) {
+			return false;
+		}
+		int size = clauses[reason];
+		for (int position = 2; position <= size; position++) {
+			int variable = clauses[reason + position] >> 1;
+			if (!seen[variable] && levels[variable] > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Undoes the assignments of the levels above the given one
+	 */
+	private void cancelUntil(int level) {
+		if (decisionLevel <= level) {
+			return;
+		}
+		for (int idx = trailSize - 1; idx >= levelStarts[level + 1]; idx--) {
+			int variable = trail[idx] >> 1;
+			savedPhases[variable] = (trail[idx] & 1) == 0;
+			values[variable] = 0;
+			if (heapPositions[variable] < 0) {
+				heapInsert(variable);
+			}
+		}
+		trailSize = levelStarts[level + 1];
+		propagationHead = trailSize;
+		decisionLevel = level;
+	}
+
+	private void newDecisionLevel() {
+		if (decisionLevel + 1 == levelStarts.length) {
+			levelStarts = Arrays.copyOf(levelStarts, 2 * levelStarts.length);
+		}
+		levelStarts[++decisionLevel] = trailSize;
+	}
+
+	/**
+	 * The unassigned variable of the highest activity, 0 if all are assigned
+	 */
+	private int pickBranchVariable() {
+		while (heapSize > 0) {
+			int variable = heapRemoveMax();
+			if (values[variable] == 0) {
+				return variable;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Value of the i-th (from 1) element of the Luby sequence 1 1 2 1 1 2 4 1 1 2 1 1 2 4 8...
+	 */
+	private static long luby(long idx) {
+		long size = 1;
+		int exponent = 0;
+		while (size < idx + 1) {
+			size = 2 * size + 1;
+			exponent++;
+		}
+		long position = idx;
+		while (size - 1 != position) {
+			size = (size - 1) >> 1;
+			exponent--;
+			position = position % size;
+		}
+		return 1L << exponent;
+	}
+
+	/**
+	 * Searches for an assignment that satisfies all the clauses. Returns SATISFIABLE (the assignment can then
+	 * be read with getValue()) or UNSATISFIABLE.
+	 */
+	public int solve() {
+		return solve(null);
+	}
+
+	/**
+	 * Same as solve(), but gives up, returning UNKNOWN, once the token (unless it is null) is cancelled. The
+	 * clauses learned so far are kept for the next solve().
+	 */
+	public int solve(CancellationToken token) {
+		if (unsatisfiable) {
+			return UNSATISFIABLE;
+		}
+		cancelUntil(0);
+		long numRestarts = 0;
+		long conflictLimit = RESTART_BASE * luby(numRestarts);
+		long numConflictsSinceRestart = 0;
+		for (long step = 0; ; step++) {
+			if (token != null && (step & CANCEL_CHECK_MASK) == 0 && token.isCancelled()) {
+				return UNKNOWN;
+			}
+			int conflict = propagate();
+			if (conflict != NO_CONFLICT) {
+				numConflicts++;
+				numConflictsSinceRestart++;
+				if (decisionLevel == 0) {
+					unsatisfiable = true;
+					return UNSATISFIABLE;
+				}
+				int backjumpLevel = analyze(conflict);
+				cancelUntil(backjumpLevel);
+				if (learnedSize == 1) {
+					assign(learned[0], NO_REASON);
+				} else {
+					assign(learned[0], storeClause(learned, learnedSize));
+				}
+				decayActivities();
+				continue;
+			}
+			if (numConflictsSinceRestart >= conflictLimit) {
+				cancelUntil(0);
+				numRestarts++;
+				conflictLimit = RESTART_BASE * luby(numRestarts);
+				numConflictsSinceRestart = 0;
+				continue;
+			}
+			int variable = pickBranchVariable();
+			if (variable == 0) {
+				for (int idx = 1; idx <= numVariables; idx++) {
+					model[idx] = values[idx] > 0;
+				}
+				return SATISFIABLE;
+			}
+			numDecisions++;
+			newDecisionLevel();
+			assign(savedPhases[variable] ? 2 * variable : 2 * variable + 1, NO_REASON);
+		}
+	}
+
+	/**
+	 * Value of the variable in the assignment found by the last solve() that returned SATISFIABLE
+	 */
+	public boolean getValue(int variable) {
+		return model[variable];
+	}
+
+	public long getNumConflicts() {
+		return numConflicts;
+	}
+
+	public long getNumDecisions() {
+		return numDecisions;
+	}
+
+	private void bumpActivity(int variable) {
+		activities[variable] += activityIncrement;
+		if (activities[variable] > ACTIVITY_LIMIT) {
+			for (int idx = 1; idx <= numVariables; idx++) {
+				activities[idx] /= ACTIVITY_LIMIT;
+			}
+			activityIncrement /= ACTIVITY_LIMIT;
+		}
+		if (heapPositions[variable] >= 0) {
+			heapUp(heapPositions[variable]);
+		}
+	}
+
+	private void decayActivities() {
+		activityIncrement /= ACTIVITY_DECAY;
+	}
+
+	private void heapInsert(int variable) {
+		heap[heapSize] = variable;
+		heapPositions[variable] = heapSize;
+		heapUp(heapSize++);
+	}
+
+	private int heapRemoveMax() {
+		int top = heap[0];
+		heapPositions[top] = -1;
+		heapSize--;
+		if (heapSize > 0) {
+			heap[0] = heap[heapSize];
+			heapPositions[heap[0]] = 0;
+			heapDown(0);
+		}
+		return top;
+	}
+
+	private void heapUp(int position) {
+		int variable = heap[position];
+		while (position > 0) {
+			int parent = (position - 1) >> 1;
+			if (activities[heap[parent]] >= activities[variable]) {
+				break;
+			}
+			heap[position] = heap[parent];
+			heapPositions[heap[position]] = position;
+			position = parent;
+		}
+		heap[position] = variable;
+		heapPositions[variable] = position;
+	}
+
+	private void heapDown(int position) {
+		int variable = heap[position];
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && activities[heap[child + 1]] > activities[heap[child]]) {
+				child++;
+			}
+			if (activities[heap[child]] <= activities[variable]) {
+				break;
+			}
+			heap[position] = heap[child];
+			heapPositions[heap[position]] = position;
+			position = child;
+		}
+		heap[position] = variable;
+		heapPositions[variable] = position;
+	}
+}
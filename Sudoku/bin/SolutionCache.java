@@ -0,0 +1,157 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the solutions of the puzzles solved through it, so that a puzzle seen before is answered without
+ * solving it again. The puzzles are looked up by their canonical form (see GridCanonicalizer), so a puzzle also
+ * hits the cache when it is a transposed, reshuffled or relabeled version of one seen before, and the stored
+ * solution is mapped back through the transformation of the new puzzle.
+ *
+ * The cache holds at most its capacity of solutions, and drops the least recently used one to make room. Puzzles
+ * found to have no solution are remembered as well. For a puzzle with several solutions, a hit returns a solution
+ * of the puzzle, but not necessarily the one the solver would have found.
+ *
+ * Canonicalizing costs about as much as solving an easy puzzle, so the cache only pays off on inputs that repeat
+ * (hard) puzzles. Grids larger than 9x9 are not canonicalized, and neither are grids without an empty cell, which
+ * only need checking and are the slowest to canonicalize: they are always solved directly.
+ *
+ * A cache can be shared by all the threads: the map is guarded by the cache, and each thread canonicalizes and
+ * solves with scratch of its own.
+ */
+public class SolutionCache {
+	// Solution stored for a puzzle found to have none
+	private static final int[] NO_SOLUTION = new int[0];
+
+	private static final ThreadLocal<GridCanonicalizer[]> CANONICALIZERS = new ThreadLocal<GridCanonicalizer[]>() {
+		@Override
+		protected GridCanonicalizer[] initialValue() {
+			// Indexed by block size
+			return new GridCanonicalizer[GridLayout.MAX_BLOCK_SIZE + 1];
+		}
+	};
+
+	private final int capacity;
+	// Canonical puzzle -> canonical solution, in access order for the LRU eviction
+	private final LinkedHashMap<String, int[]> solutions;
+	private long numHits;
+	private long numMisses;
+
+	public SolutionCache(final int capacity) throws IllegalArgumentException {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Cache capacity must be positive:" + capacity);
+		}
+		this.capacity = capacity;
+		solutions = new LinkedHashMap<String, int[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Solves the flat grid in place, from the cache if an equivalent puzzle was solved before, adding to the
+	 * metrics (unless they are null) when it does get solved. Returns false, leaving the cells as they were, if
+	 * the puzzle has no solution.
+	 */
+	public boolean solve(int[] cells, SolverMetrics metrics) throws IllegalArgumentException {
+		return solve(cells, metrics, null);
+	}
+
+	/**
+	 * Same as solve(cells, metrics), but a puzzle that is not in the cache gives up, returning false, once the
+	 * token (unless it is null) is cancelled, see SudokuSolver.solve(CancellationToken). A puzzle given up on is
+	 * not remembered.
+	 */
+	public boolean solve(int[] cells, SolverMetrics metrics, CancellationToken token)
+			throws IllegalArgumentException {
+		GridLayout layout = GridLayout.forNumCells(cells.length);
+		if (layout == null) {
+			throw new IllegalArgumentException("Unsupported grid size:" + cells.length);
+		}
+		if (!GridCanonicalizer.isSupported(layout) || !hasEmptyCell(cells)) {
+			return SolverPool.solve(cells, metrics, token);
+		}
+		GridCanonicalizer.Transform transform = getCanonicalizer(layout).canonicalize(cells);
+		String key = toKey(transform.getCanonicalCells());
+		int[] canonicalSolution;
+		synchronized (this) {
+			canonicalSolution = solutions.get(key);
+			if (canonicalSolution != null) {
+				numHits++;
+			} else {
+				numMisses++;
+			}
+		}
+		if (canonicalSolution == null) {
+			canonicalSolution = SolverPool.solve(cells, metrics, token) ? transform.toCanonical(cells) : NO_SOLUTION;
+			if (canonicalSolution == NO_SOLUTION && token != null && token.isCancelled()) {
+				return false;
+			}
+			synchronized (this) {
+				solutions.put(key, canonicalSolution);
+			}
+			return canonicalSolution != NO_SOLUTION;
+		}
+		if (canonicalSolution == NO_SOLUTION) {
+			return false;
+		}
+		transform.fromCanonical(canonicalSolution, cells);
+		return true;
+	}
+
+	private static boolean hasEmptyCell(int[] cells) {
+		for (int cell = 0; cell < cells.length; cell++) {
+			if (cells[cell] == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static GridCanonicalizer getCanonicalizer(GridLayout layout) {
+		GridCanonicalizer[] canonicalizers = CANONICALIZERS.get();
+		GridCanonicalizer canonicalizer = canonicalizers[layout.blockSize];
+		if (canonicalizer == null) {
+			canonicalizer = new GridCanonicalizer(layout);
+			canonicalizers[layout.blockSize] = canonicalizer;
+		}
+		return canonicalizer;
+	}
+
+	private static String toKey(int[] canonicalCells) {
+		char[] key = new char[canonicalCells.length];
+		for (int cell = 0; cell < canonicalCells.length; cell++) {
+			key[cell] = (char) ('0' + canonicalCells[cell]);
+		}
+		return new String(key);
+	}
+
+	public synchronized int size() {
+		return solutions.size();
+	}
+
+	/**
+	 * Number of puzzles answered from the cache
+	 */
+	public synchronized long getNumHits() {
+		return numHits;
+	}
+
+	/**
+	 * Number of puzzles that had to be solved
+	 */
+	public synchronized long getNumMisses() {
+		return numMisses;
+	}
+
+	public synchronized void clear() {
+		solutions.clear();
+	}
+}
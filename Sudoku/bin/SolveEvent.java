@@ -0,0 +1,39 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a whole SudokuSolver.solve() or countSolutions(), with the counts of the solve including its search
+ * branches
+ */
+@Name("sudoku.Solve")
+@Label("Solve")
+@Category("Sudoku")
+@Description("A puzzle solved or counted by the solver")
+@StackTrace(false)
+class SolveEvent extends Event {
+	@Label("Grid Size")
+	int gridSize;
+
+	@Label("Solutions")
+	@Description("Number of solutions found, at most 1 for solve() and 2 for countSolutions()")
+	int numSolutions;
+
+	@Label("Iterations")
+	long iterations;
+
+	@Label("Naked Singles")
+	long nakedSingles;
+
+	@Label("Hidden Singles")
+	long hiddenSingles;
+
+	@Label("Eliminations")
+	long eliminations;
+
+	@Label("Search Nodes")
+	long searchNodes;
+}
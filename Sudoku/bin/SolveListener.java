@@ -0,0 +1,23 @@
+/**
+ * Receives the steps taken by SudokuSolver while it solves a grid. Cells are flat indexes in row-major order
+ * (see GridLayout), digits start from 1.
+ *
+ * The solver calls it from its innermost loops, so implementations should be cheap. The default is
+ * NoOpSolveListener, whose empty methods the JIT inlines away.
+ */
+public interface SolveListener {
+	/**
+	 * A digit was placed in a cell, either as a given, as a deduction or as a guess of the search
+	 */
+	void onPlacement(Sudoku sudoku, int cell, int digit);
+
+	/**
+	 * A digit stopped being a candidate for an unsolved cell
+	 */
+	void onElimination(Sudoku sudoku, int cell, int digit);
+
+	/**
+	 * An iteration of the rule passes (block-line interactions followed by the placements they lead to) is over
+	 */
+	void onIterationEnd(Sudoku sudoku, int iteration);
+}
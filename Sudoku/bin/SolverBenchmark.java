@@ -0,0 +1,97 @@
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Times SudokuSolver (sequential and with the parallel search) and DancingLinksSolver on the same puzzles, mainly to follow how they scale to the larger
+ * grids (16x16, 25x25...) where the search space explodes.
+ *
+ * Every puzzle is solved a few times by each engine first, so that the JIT has compiled the hot paths before the
+ * measured runs start. The time reported is the average of the measured runs.
+ */
+public class SolverBenchmark {
+	private static final int WARMUP_RUNS = 3;
+	private static final int MEASURED_RUNS = 5;
+
+	private SolverBenchmark() {
+	}
+
+	/**
+	 * Solves the grid with the rule-based engine, and returns the solve time in microseconds or -1 if it failed
+	 */
+	private static long timeSudokuSolver(int[][] grid) {
+		long startTime = System.nanoTime();
+		boolean solved = new SudokuSolver(grid).solve();
+		long elapsedMicros = (System.nanoTime() - startTime) / 1000;
+		return solved ? elapsedMicros : -1;
+	}
+
+	/**
+	 * Solves the grid with the rule-based engine and the parallel search in the common pool, and returns the solve
+	 * time in microseconds or -1 if it failed
+	 */
+	private static long timeParallelSudokuSolver(int[][] grid) {
+		long startTime = System.nanoTime();
+		boolean solved = new SudokuSolver(grid).solveParallel(ForkJoinPool.commonPool());
+		long elapsedMicros = (System.nanoTime() - startTime) / 1000;
+		return solved ? elapsedMicros : -1;
+	}
+
+	/**
+	 * Solves the grid with Dancing Links, and returns the solve time in microseconds or -1 if it failed
+	 */
+	private static long timeDancingLinksSolver(int[][] grid) {
+		long startTime = System.nanoTime();
+		Sudoku solution = new DancingLinksSolver(grid).solve();
+		long elapsedMicros = (System.nanoTime() - startTime) / 1000;
+		return (solution != null) ? elapsedMicros : -1;
+	}
+
+	private static String formatAverage(long totalMicros, boolean failed) {
+		return failed ? "unsolved" : (totalMicros / MEASURED_RUNS) + " us";
+	}
+
+	/**
+	 * Usage: java SolverBenchmark inputFile...
+	 * Each input file holds one puzzle in the format read by SudokuSolver, of any supported size.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0) {
+			System.out.println("Usage: java SolverBenchmark inputFile...");
+			return;
+		}
+
+		for (String filePath : args) {
+			int[][] grid = SudokuSolver.readGrid(new String[] { filePath });
+			if (grid == null) {
+				continue;
+			}
+
+			for (int run = 0; run < WARMUP_RUNS; run++) {
+				timeSudokuSolver(grid);
+				timeParallelSudokuSolver(grid);
+				timeDancingLinksSolver(grid);
+			}
+
+			long rulesMicros = 0;
+			long parallelMicros = 0;
+			long dancingLinksMicros = 0;
+			boolean rulesFailed = false;
+			boolean parallelFailed = false;
+			boolean dancingLinksFailed = false;
+			for (int run = 0; run < MEASURED_RUNS; run++) {
+				long micros = timeSudokuSolver(grid);
+				rulesFailed |= (micros < 0);
+				rulesMicros += micros;
+				micros = timeParallelSudokuSolver(grid);
+				parallelFailed |= (micros < 0);
+				parallelMicros += micros;
+				micros = timeDancingLinksSolver(grid);
+				dancingLinksFailed |= (micros < 0);
+				dancingLinksMicros += micros;
+			}
+			System.out.println(filePath + " (" + grid.length + "x" + grid.length + "): SudokuSolver "
+				+ formatAverage(rulesMicros, rulesFailed) + ", parallel " + formatAverage(parallelMicros, parallelFailed)
+				+ ", DancingLinksSolver "
+				+ formatAverage(dancingLinksMicros, dancingLinksFailed));
+		}
+	}
+}
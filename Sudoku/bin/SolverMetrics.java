@@ -0,0 +1,183 @@
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and timers of the deductions made by SudokuSolver, summed up over every solve it is set on (see
+ * SudokuSolver.setMetrics()). One instance can be shared by the solvers of all the threads: the solvers count
+ * in plain fields of their own, and add up into the metrics once per pass or per solve.
+ *
+ * Techniques are "Singles" (propagating each placement to the peers of the cell, which is also where the naked
+ * and hidden singles turn up), "Block-line" (the block-line interactions pass) and the names of the strategies.
+ * For each one the metrics hold the number of passes, the eliminations made by the passes and the time spent in
+ * them. Solvers without metrics skip all the timing, so they only pay for a null check per pass.
+ */
+public class SolverMetrics {
+	public static final String SINGLES = "Singles";
+	public static final String BLOCK_LINE = "Block-line";
+
+	private final LongAdder numSolves = new LongAdder();
+	private final LongAdder solveNanos = new LongAdder();
+	private final LongAdder numIterations = new LongAdder();
+	private final LongAdder numNakedSingles = new LongAdder();
+	private final LongAdder numHiddenSingles = new LongAdder();
+	private final LongAdder numSearchNodes = new LongAdder();
+	private final ConcurrentMap<String, TechniqueCounters> techniques = new ConcurrentHashMap<String, TechniqueCounters>();
+
+	private static class TechniqueCounters {
+		final LongAdder numPasses = new LongAdder();
+		final LongAdder numEliminations = new LongAdder();
+		final LongAdder nanos = new LongAdder();
+	}
+
+	private TechniqueCounters getTechniqueCounters(String technique) {
+		TechniqueCounters counters = techniques.get(technique);
+		if (counters == null) {
+			TechniqueCounters newCounters = new TechniqueCounters();
+			counters = techniques.putIfAbsent(technique, newCounters);
+			if (counters == null) {
+				counters = newCounters;
+			}
+		}
+		return counters;
+	}
+
+	/**
+	 * Adds a pass of the technique, which made numEliminations eliminations in nanos nanoseconds
+	 */
+	void recordPass(String technique, long numEliminations, long nanos) {
+		TechniqueCounters counters = getTechniqueCounters(technique);
+		counters.numPasses.increment();
+		counters.numEliminations.add(numEliminations);
+		counters.nanos.add(nanos);
+	}
+
+	/**
+	 * Adds a whole solve, including its search branches
+	 */
+	void recordSolve(long nanos, long numIterations, long numNakedSingles, long numHiddenSingles, long numSearchNodes) {
+		numSolves.increment();
+		solveNanos.add(nanos);
+		this.numIterations.add(numIterations);
+		this.numNakedSingles.add(numNakedSingles);
+		this.numHiddenSingles.add(numHiddenSingles);
+		this.numSearchNodes.add(numSearchNodes);
+	}
+
+	/**
+	 * Returns the current values. Solves still running on other threads may be partly included.
+	 */
+	public Snapshot snapshot() {
+		Map<String, long[]> techniqueValues = new TreeMap<String, long[]>();
+		for (Map.Entry<String, TechniqueCounters> entry : techniques.entrySet()) {
+			TechniqueCounters counters = entry.getValue();
+			techniqueValues.put(entry.getKey(), new long[] { counters.numPasses.sum(), counters.numEliminations.sum(),
+				counters.nanos.sum() });
+		}
+		return new Snapshot(numSolves.sum(), solveNanos.sum(), numIterations.sum(), numNakedSingles.sum(),
+			numHiddenSingles.sum(), numSearchNodes.sum(), techniqueValues);
+	}
+
+	/**
+	 * The values of the metrics at one point in time
+	 */
+	public static class Snapshot {
+		private static final int PASSES = 0;
+		private static final int ELIMINATIONS = 1;
+		private static final int NANOS = 2;
+
+		private final long numSolves;
+		private final long solveNanos;
+		private final long numIterations;
+		private final long numNakedSingles;
+		private final long numHiddenSingles;
+		private final long numSearchNodes;
+		// Technique name to {passes, eliminations, nanos}, sorted by name
+		private final Map<String, long[]> techniques;
+
+		Snapshot(long numSolves, long solveNanos, long numIterations, long numNakedSingles, long numHiddenSingles,
+				long numSearchNodes, Map<String, long[]> techniques) {
+			this.numSolves = numSolves;
+			this.solveNanos = solveNanos;
+			this.numIterations = numIterations;
+			this.numNakedSingles = numNakedSingles;
+			this.numHiddenSingles = numHiddenSingles;
+			this.numSearchNodes = numSearchNodes;
+			this.techniques = techniques;
+		}
+
+		public long getNumSolves() {
+			return numSolves;
+		}
+
+		public long getSolveNanos() {
+			return solveNanos;
+		}
+
+		public long getNumIterations() {
+			return numIterations;
+		}
+
+		public long getNumNakedSingles() {
+			return numNakedSingles;
+		}
+
+		public long getNumHiddenSingles() {
+			return numHiddenSingles;
+		}
+
+		public long getNumSearchNodes() {
+			return numSearchNodes;
+		}
+
+		/**
+		 * Number of passes of the technique, 0 if it never ran
+		 */
+		public long getNumPasses(String technique) {
+			return getTechniqueValue(technique, PASSES);
+		}
+
+		public long getNumEliminations(String technique) {
+			return getTechniqueValue(technique, ELIMINATIONS);
+		}
+
+		public long getNanos(String technique) {
+			return getTechniqueValue(technique, NANOS);
+		}
+
+		private long getTechniqueValue(String technique, int index) {
+			long[] values = techniques.get(technique);
+			return (values == null) ? 0 : values[index];
+		}
+
+		/**
+		 * e.g. {"solves":1,"solveNanos":52000,...,"techniques":{"Block-line":{"passes":3,"eliminations":12,"nanos":9000},...}}
+		 */
+		public String toJson() {
+			StringBuilder json = new StringBuilder("{");
+			json.append("\"solves\":").append(numSolves);
+			json.append(",\"solveNanos\":").append(solveNanos);
+			json.append(",\"iterations\":").append(numIterations);
+			json.append(",\"nakedSingles\":").append(numNakedSingles);
+			json.append(",\"hiddenSingles\":").append(numHiddenSingles);
+			json.append(",\"searchNodes\":").append(numSearchNodes);
+			json.append(",\"techniques\":{");
+			boolean first = true;
+			for (Map.Entry<String, long[]> entry : techniques.entrySet()) {
+				long[] values = entry.getValue();
+				json.append(first ? "" : ",").append('"').append(escapeJson(entry.getKey())).append("\":{");
+				json.append("\"passes\":").append(values[PASSES]);
+				json.append(",\"eliminations\":").append(values[ELIMINATIONS]);
+				json.append(",\"nanos\":").append(values[NANOS]).append('}');
+				first = false;
+			}
+			return json.append("}}").toString();
+		}
+
+		private static String escapeJson(String text) {
+			return text.replace("\\", "\\\\").replace("\"", "\\\"");
+		}
+	}
+}
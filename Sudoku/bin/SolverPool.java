@@ -0,0 +1,85 @@
+/**
+ * Reusable SudokuSolvers, one per thread and grid size, so that solving a stream of puzzles does not create a
+ * new solver (and its hundreds of candidate sets) for every puzzle. A solver is created the first time a thread
+ * asks for its size, and after that only reset to the next puzzle.
+ *
+ * A solver handed out by acquire() belongs to the calling thread until that thread calls acquire() again for the
+ * same size, which resets it. So the solution in getSudoku() has to be used or copied before the next puzzle,
+ * and the solver must not be handed over to another thread.
+ */
+public final class SolverPool {
+	private static final ThreadLocal<SudokuSolver[]> SOLVERS = new ThreadLocal<SudokuSolver[]>() {
+		@Override
+		protected SudokuSolver[] initialValue() {
+			// Indexed by block size
+			return new SudokuSolver[GridLayout.MAX_BLOCK_SIZE + 1];
+		}
+	};
+
+	private SolverPool() {
+	}
+
+	/**
+	 * Returns the solver of the calling thread for the size of the flat grid, loaded with the grid and with
+	 * the default listener and strategies and no metrics
+	 */
+	static SudokuSolver acquire(int[] cells) throws IllegalArgumentException {
+		GridLayout layout = GridLayout.forNumCells(cells.length);
+		if (layout == null) {
+			throw new IllegalArgumentException("Unsupported grid size:" + cells.length);
+		}
+		SudokuSolver[] solvers = SOLVERS.get();
+		SudokuSolver solver = solvers[layout.blockSize];
+		if (solver == null) {
+			solver = new SudokuSolver(cells);
+			solvers[layout.blockSize] = solver;
+			return solver;
+		}
+		solver.resetSettings();
+		solver.reset(cells);
+		return solver;
+	}
+
+	/**
+	 * Same as acquire(int[]) for a square grid
+	 */
+	public static SudokuSolver acquire(int[][] grid) throws IllegalArgumentException {
+		GridLayout layout = GridLayout.forSize(grid.length);
+		if (layout == null) {
+			throw new IllegalArgumentException("Unsupported grid size:" + grid.length);
+		}
+		SudokuSolver[] solvers = SOLVERS.get();
+		SudokuSolver solver = solvers[layout.blockSize];
+		if (solver == null) {
+			solver = new SudokuSolver(grid);
+			solvers[layout.blockSize] = solver;
+			return solver;
+		}
+		solver.resetSettings();
+		solver.reset(grid);
+		return solver;
+	}
+
+	/**
+	 * Solves the flat grid in place with the solver of the calling thread, adding to the metrics unless they are
+	 * null. Returns false, leaving the cells as they were, if the puzzle could not be solved.
+	 */
+	static boolean solve(int[] cells, SolverMetrics metrics) throws IllegalArgumentException {
+		return solve(cells, metrics, null);
+	}
+
+	/**
+	 * Same as solve(cells, metrics), but gives up, returning false, once the token (unless it is null) is
+	 * cancelled, see SudokuSolver.solve(CancellationToken)
+	 */
+	static boolean solve(int[] cells, SolverMetrics metrics, CancellationToken token)
+			throws IllegalArgumentException {
+		SudokuSolver solver = acquire(cells);
+		solver.setMetrics(metrics);
+		if (!solver.solve(token)) {
+			return false;
+		}
+		System.arraycopy(solver.getSudoku().getCells(), 0, cells, 0, cells.length);
+		return true;
+	}
+}
@@ -0,0 +1,52 @@
+import java.util.Arrays;
+
+/**
+ * Undo log of the state changes of SudokuSolver. Every change is recorded as the slot it happened in and the
+ * value the slot held before, so that going back to an earlier point (a mark, i.e. an earlier size of the trail)
+ * costs one step per change made since, instead of a copy of the whole state at every branch of the search.
+ *
+ * What a slot stands for is up to the solver (see SudokuSolver.undoTo()); the trail only stores the entries, in
+ * two parallel arrays that grow as needed and are reused after being truncated.
+ */
+class SolverTrail {
+	private int[] slots;
+	private long[] oldValues;
+	private int size;
+
+	SolverTrail(int initialCapacity) {
+		slots = new int[initialCapacity];
+		oldValues = new long[initialCapacity];
+	}
+
+	void record(int slot, long oldValue) {
+		if (size == slots.length) {
+			slots = Arrays.copyOf(slots, 2 * size);
+			oldValues = Arrays.copyOf(oldValues, 2 * size);
+		}
+		slots[size] = slot;
+		oldValues[size] = oldValue;
+		size++;
+	}
+
+	/**
+	 * Number of entries, to be passed back to truncate() as a mark
+	 */
+	int size() {
+		return size;
+	}
+
+	int getSlot(int idx) {
+		return slots[idx];
+	}
+
+	long getOldValue(int idx) {
+		return oldValues[idx];
+	}
+
+	/**
+	 * Drops the entries from the mark on, once they have been undone
+	 */
+	void truncate(int mark) {
+		size = mark;
+	}
+}
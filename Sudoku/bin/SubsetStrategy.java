@@ -0,0 +1,133 @@
+/**
+ * Naked and hidden subsets (pairs, triples...) within a row, column or block.
+ *
+ * Naked: subsetSize unsolved cells of a unit whose candidates together are just subsetSize digits. Those digits
+ * have to go in those cells, so they are no longer candidates for the other cells of the unit.
+ * Hidden: subsetSize digits whose candidate positions in a unit together are just subsetSize cells. Those cells
+ * have to hold those digits, so no other digit is a candidate for them any more.
+ *
+ * The two are the same search with the roles of cells and digits swapped. The members of a subset are picked as
+ * bits of a mask, and a partial subset is dropped as soon as the union of its candidates grows beyond subsetSize,
+ * so the search allocates nothing.
+ */
+public class SubsetStrategy implements DeductionStrategy {
+	private static final String[] SUBSET_NAMES = { "", "single", "pair", "triple", "quad" };
+
+	private final int subsetSize;
+	private final boolean hidden;
+	private final int cost;
+
+	public SubsetStrategy(int subsetSize, boolean hidden, int cost) throws IllegalArgumentException {
+		if (subsetSize < 2 || subsetSize >= SUBSET_NAMES.length) {
+			throw new IllegalArgumentException("Invalid subset size:" + subsetSize);
+		}
+		this.subsetSize = subsetSize;
+		this.hidden = hidden;
+		this.cost = cost;
+	}
+
+	@Override
+	public String getName() {
+		return (hidden ? "Hidden " : "Naked ") + SUBSET_NAMES[subsetSize];
+	}
+
+	@Override
+	public int getCost() {
+		return cost;
+	}
+
+	@Override
+	public boolean apply(SudokuSolver solver) {
+		GridLayout layout = solver.getLayout();
+		boolean eliminated = false;
+		for (int unit = 0; unit < layout.numUnits && !solver.pollCancelled(); unit++) {
+			// Members are positions in the unit for naked subsets, digits (less 1) for hidden ones
+			long members = 0;
+			int numUnsolved = 0;
+			for (int member = 0; member < layout.size; member++) {
+				int numCandidates = Long.bitCount(getCandidates(solver, layout, unit, member));
+				if (numCandidates > 0) {
+					numUnsolved++;
+				}
+				if (numCandidates >= 2 && numCandidates <= subsetSize) {
+					members |= 1L << member;
+				}
+			}
+			// There has to be something left to eliminate from outside the subset
+			if (numUnsolved > subsetSize && Long.bitCount(members) >= subsetSize) {
+				eliminated |= extendSubset(solver, layout, unit, members, 0, 0, 0);
+			}
+		}
+		return eliminated;
+	}
+
+	/**
+	 * Naked: the candidate digits of the cell at the position. Hidden: the candidate positions of the digit.
+	 */
+	private long getCandidates(SudokuSolver solver, GridLayout layout, int unit, int member) {
+		if (hidden) {
+			return solver.getCandidatePositions(unit, member + 1);
+		}
+		return solver.getCandidateDigits(layout.unitCells[unit][member]);
+	}
+
+	/**
+	 * Adds each of the remaining members in turn to the subset chosen so far (numChosen members, whose candidates
+	 * together are union), and eliminates outside every subset of subsetSize members that is complete
+	 */
+	private boolean extendSubset(SudokuSolver solver, GridLayout layout, int unit, long remaining, int numChosen,
+			long chosen, long union) {
+		boolean eliminated = false;
+		for (long rest = remaining; rest != 0 && !solver.pollCancelled(); rest &= rest - 1) {
+			int member = Long.numberOfTrailingZeros(rest);
+			long candidates = getCandidates(solver, layout, unit, member);
+			// The eliminations of an earlier subset may have solved the member in the meantime
+			if (Long.bitCount(candidates) < 2) {
+				continue;
+			}
+			long newUnion = union | candidates;
+			if (Long.bitCount(newUnion) > subsetSize) {
+				continue;
+			}
+			long newChosen = chosen | (1L << member);
+			if (numChosen + 1 < subsetSize) {
+				eliminated |= extendSubset(solver, layout, unit, rest & (rest - 1), numChosen + 1, newChosen, newUnion);
+			} else if (Long.bitCount(newUnion) == subsetSize) {
+				eliminated |= hidden ? eliminateHidden(solver, layout, unit, newChosen, newUnion)
+					: eliminateNaked(solver, layout, unit, newChosen, newUnion);
+			}
+		}
+		return eliminated;
+	}
+
+	/**
+	 * The digits are taken by the cells at the chosen positions: remove them from all the other cells of the unit
+	 */
+	private boolean eliminateNaked(SudokuSolver solver, GridLayout layout, int unit, long positions, long digits) {
+		boolean eliminated = false;
+		for (int position = 0; position < layout.size; position++) {
+			if ((positions & (1L << position)) != 0) {
+				continue;
+			}
+			int cell = layout.unitCells[unit][position];
+			for (long digitBits = solver.getCandidateDigits(cell) & digits; digitBits != 0; digitBits &= digitBits - 1) {
+				eliminated |= solver.eliminate(cell, Long.numberOfTrailingZeros(digitBits) + 1);
+			}
+		}
+		return eliminated;
+	}
+
+	/**
+	 * The cells at the positions are taken by the chosen digits: remove all the other digits from those cells
+	 */
+	private boolean eliminateHidden(SudokuSolver solver, GridLayout layout, int unit, long digits, long positions) {
+		boolean eliminated = false;
+		for (long positionBits = positions; positionBits != 0; positionBits &= positionBits - 1) {
+			int cell = layout.unitCells[unit][Long.numberOfTrailingZeros(positionBits)];
+			for (long digitBits = solver.getCandidateDigits(cell) & ~digits; digitBits != 0; digitBits &= digitBits - 1) {
+				eliminated |= solver.eliminate(cell, Long.numberOfTrailingZeros(digitBits) + 1);
+			}
+		}
+		return eliminated;
+	}
+}
@@ -1,57 +1,119 @@
+import java.util.Arrays;
+
 public class Sudoku {
-	private int[][] grid;
-	private static final int GRID_ROW_SIZE = 9;
+	private GridLayout layout;
+	private int[] cells; // Flat grid in row-major order, see GridLayout
 	private int unsolvedCount;
 
 	public Sudoku() {
-		grid = new int[GRID_ROW_SIZE][GRID_ROW_SIZE];
-		for (int row = 0; row < GRID_ROW_SIZE; row++) {
-			for (int col = 0; col < GRID_ROW_SIZE; col++) {
-				grid[row][col] = 0;
-			}
-		}
-		unsolvedCount = GRID_ROW_SIZE * GRID_ROW_SIZE;
+		this(GridLayout.STANDARD);
 	}
 
+	public Sudoku(GridLayout layout) {
+		this.layout = layout;
+		cells = new int[layout.numCells];
+		unsolvedCount = layout.numCells;
+	}
+
+	/**
+	 * Copies the grid, whose size (number of rows) has to be the square of a supported block size
+	 */
 	public Sudoku(int[][] grid) {
-		this.grid = new int[GRID_ROW_SIZE][GRID_ROW_SIZE];
-		unsolvedCount = GRID_ROW_SIZE * GRID_ROW_SIZE;
-		for (int row = 0; row < GRID_ROW_SIZE; row++) {
-			for (int col = 0; col < GRID_ROW_SIZE; col++) {
-				this.grid[row][col] = grid[row][col];
-				if (grid[row][col] != 0) {
-					unsolvedCount--;
-				}
+		this(checkLayout(GridLayout.forSize(grid.length), grid.length));
+		for (int row = 0; row < layout.size; row++) {
+			for (int col = 0; col < layout.size; col++) {
+				setValue(row, col, grid[row][col]);
 			}
 		}
 	}
 
+	/**
+	 * Copies the flat grid, whose number of cells has to be the fourth power of a supported block size
+	 */
+	public Sudoku(int[] cells) {
+		this(checkLayout(GridLayout.forNumCells(cells.length), cells.length));
+		for (int cell = 0; cell < layout.numCells; cell++) {
+			setValue(cell, cells[cell]);
+		}
+	}
+
+	private static GridLayout checkLayout(GridLayout layout, int length) throws IllegalArgumentException {
+		if (layout == null) {
+			throw new IllegalArgumentException("Unsupported grid size:" + length);
+		}
+		return layout;
+	}
+
 	public void printGrid() {
-		for (int row = 0; row < GRID_ROW_SIZE; row++) {
-			for (int col = 0; col < GRID_ROW_SIZE; col++) {
-				if (grid[row][col] == 0) {
-					System.out.print("  ");
-				} else {
-					System.out.print(grid[row][col] + " ");
+		// Pad every value to the width of the largest digit, so that the columns line up on larger grids
+		int width = Integer.toString(layout.size).length();
+		for (int row = 0; row < layout.size; row++) {
+			StringBuilder line = new StringBuilder();
+			for (int col = 0; col < layout.size; col++) {
+				int value = cells[row * layout.size + col];
+				String text = (value == 0) ? "" : Integer.toString(value);
+				for (int pad = text.length(); pad < width; pad++) {
+					line.append(' ');
 				}
+				line.append(text).append(' ');
 			}
-			System.out.println();
+			System.out.println(line);
 		}
 	}
 
+	public GridLayout getLayout() {
+		return layout;
+	}
+
+	public int getSize() {
+		return layout.size;
+	}
+
 	public boolean isSolved() {
 		return (unsolvedCount == 0);
 	}
 
 	public int getValue(int row, int col) {
-		return grid[row][col];
+		return cells[row * layout.size + col];
+	}
+
+	public int getValue(int cell) {
+		return cells[cell];
 	}
 
 	public void setValue(int row, int col, int value) {
-		if (grid[row][col] == 0 && value != 0) {
+		setValue(row * layout.size + col, value);
+	}
+
+	public void setValue(int cell, int value) {
+		if (cells[cell] == 0 && value != 0) {
 			unsolvedCount--;
+		} else if (cells[cell] != 0 && value == 0) {
+			unsolvedCount++;
 		}
-		grid[row][col] = value;
+		cells[cell] = value;
+	}
+
+	/**
+	 * Empties every cell, so that the grid can be filled in again
+	 */
+	public void clear() {
+		Arrays.fill(cells, 0);
+		unsolvedCount = layout.numCells;
+	}
+
+	/**
+	 * The cells themselves in row-major order, not a copy, for reading without allocating (see GridValidator)
+	 */
+	int[] getCells() {
+		return cells;
+	}
+
+	/**
+	 * Copy of the cells in row-major order
+	 */
+	public int[] toCellArray() {
+		return cells.clone();
 	}
 
 	public int getUnsolvedCount() {
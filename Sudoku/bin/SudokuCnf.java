@@ -0,0 +1,150 @@
+/**
+ * CNF encoding of a Sudoku for SatSolver, the SAT backend of SudokuSolver. There is a variable for each digit that
+ * is still a candidate of each cell, true if the cell holds the digit, and the clauses say that:
+ * - every cell holds at least one of its candidates, and at most one (a clause for every pair of them)
+ * - every digit goes in at least one of its candidate positions in every row, column and block, and at most one
+ * - the cells already filled in hold their digit (unit clauses)
+ *
+ * Encoding the candidates left by the rule passes, rather than all the digits of all the cells, keeps the formula
+ * small: the pairwise "at most one" clauses are what makes up most of it, and their number grows with the square
+ * of the candidates per cell and unit.
+ */
+public class SudokuCnf {
+	private final GridLayout layout;
+	private final SatSolver solver;
+	private final int[] firstVariables; // Indexed by cell: variable of its lowest candidate (the others follow)
+	private final long[] candidates; // Indexed by cell: the candidate digits (bit digit - 1) with a variable
+	private final int[] solution;
+
+	/**
+	 * Encodes the grid of cells (0 for unsolved) in which the unsolved cells have the given candidate digits
+	 * (bit digit - 1); cells already filled in only have their digit. An unsolved cell without candidates makes
+	 * the formula unsatisfiable.
+	 */
+	public SudokuCnf(GridLayout layout, int[] cells, long[] candidateDigits) {
+		this.layout = layout;
+		firstVariables = new int[layout.numCells];
+		candidates = new long[layout.numCells];
+		int numVariables = 0;
+		for (int cell = 0; cell < layout.numCells; cell++) {
+			candidates[cell] = (cells[cell] != 0) ? 1L << (cells[cell] - 1) : candidateDigits[cell];
+			firstVariables[cell] = numVariables + 1;
+			numVariables += Long.bitCount(candidates[cell]);
+		}
+		solver = new SatSolver(numVariables);
+		solution = new int[layout.numCells];
+
+		for (int cell = 0; cell < layout.numCells; cell++) {
+			if (cells[cell] != 0) {
+				solver.addClause(getVariable(cell, cells[cell]));
+			}
+			addExactlyOne(getCellVariables(cell));
+		}
+		int[] positionVariables = new int[layout.size];
+		for (int unit = 0; unit < layout.numUnits; unit++) {
+			for (int digit = 1; digit <= layout.size; digit++) {
+				int numPositions = 0;
+				for (int position = 0; position < layout.size; position++) {
+					int variable = getVariable(layout.unitCells[unit][position], digit);
+					if (variable != 0) {
+						positionVariables[numPositions++] = variable;
+					}
+				}
+				int[] variables = new int[numPositions];
+				System.arraycopy(positionVariables, 0, variables, 0, numPositions);
+				addExactlyOne(variables);
+			}
+		}
+	}
+
+	/**
+	 * Encodes the givens alone, with every digit a candidate of every unsolved cell
+	 */
+	public static SudokuCnf forGivens(GridLayout layout, int[] cells) {
+		long[] candidateDigits = new long[layout.numCells];
+		long allDigits = (layout.size == 64) ? -1L : (1L << layout.size) - 1;
+		for (int cell = 0; cell < layout.numCells; cell++) {
+			candidateDigits[cell] = allDigits;
+		}
+		return new SudokuCnf(layout, cells, candidateDigits);
+	}
+
+	/**
+	 * Variable of the digit in the cell, 0 if the digit is not a candidate of the cell
+	 */
+	private int getVariable(int cell, int digit) {
+		long bit = 1L << (digit - 1);
+		if ((candidates[cell] & bit) == 0) {
+			return 0;
+		}
+		return firstVariables[cell] + Long.bitCount(candidates[cell] & (bit - 1));
+	}
+
+	private int[] getCellVariables(int cell) {
+		int[] variables = new int[Long.bitCount(candidates[cell])];
+		for (int idx = 0; idx < variables.length; idx++) {
+			variables[idx] = firstVariables[cell] + idx;
+		}
+		return variables;
+	}
+
+	/**
+	 * At least one of the variables is true (an empty clause if there are none), and no two of them are
+	 */
+	private void addExactlyOne(int[] variables) {
+		solver.addClause(variables);
+		for (int first = 0; first < variables.length; first++) {
+			for (int second = first + 1; second < variables.length; second++) {
+				solver.addClause(-variables[first], -variables[second]);
+			}
+		}
+	}
+
+	public SatSolver getSolver() {
+		return solver;
+	}
+
+	/**
+	 * Solves the formula. Returns SatSolver.SATISFIABLE, after which getSolution() holds the solved grid, or
+	 * SatSolver.UNSATISFIABLE.
+	 */
+	public int solve() {
+		return solve(null);
+	}
+
+	/**
+	 * Same as solve(), but gives up, returning SatSolver.UNKNOWN, once the token (unless it is null) is cancelled
+	 */
+	public int solve(CancellationToken token) {
+		int result = solver.solve(token);
+		if (result == SatSolver.SATISFIABLE) {
+			for (int cell = 0; cell < layout.numCells; cell++) {
+				for (long digits = candidates[cell]; digits != 0; digits &= digits - 1) {
+					int digit = Long.numberOfTrailingZeros(digits) + 1;
+					if (solver.getValue(getVariable(cell, digit))) {
+						solution[cell] = digit;
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The grid found by the last solve() that returned SATISFIABLE, flat in row-major order. Not a copy.
+	 */
+	public int[] getSolution() {
+		return solution;
+	}
+
+	/**
+	 * Rules out the solution found by the last solve(), so that solving again finds another one if there is
+	 */
+	public void excludeSolution() {
+		int[] clause = new int[layout.numCells];
+		for (int cell = 0; cell < layout.numCells; cell++) {
+			clause[cell] = -getVariable(cell, solution[cell]);
+		}
+		solver.addClause(clause);
+	}
+}
@@ -0,0 +1,224 @@
+/**
+ * A puzzle being solved by a player, for an interactive front-end that refreshes its hints and conflict
+ * highlighting after every move. The rule passes of a SudokuSolver run once on the givens, and every placement is
+ * then applied to that state as a guess (see SudokuSolver.guess()): the digit goes in and the rule passes go on
+ * from there, which only touches the peers and units of what changes. A removal undoes the solver through its
+ * trail (see SolverTrail) to just before the placement, and replays the placements made after it, so nothing is
+ * ever rebuilt from the givens, and taking back the last move costs about as much as making it.
+ *
+ * The grid of the player (getValue()) and that of the solver are kept apart: the solver also holds the digits the
+ * rule passes deduced from the givens and the placements, which are the hints. A session is not thread safe.
+ */
+public class SudokuSession {
+	// What became of a placement, see apply()
+	private static final int APPLIED = 0; // Guessed on the solver
+	private static final int DEDUCED = 1; // The rule passes had already filled in the same digit
+	private static final int CONTRADICTED = 2; // The rule passes had filled in another digit
+	private static final int SKIPPED = 3; // The solver was already at a dead end
+
+	private final GridLayout layout;
+	private final SudokuSolver solver;
+	private final GridValidator validator;
+	private final int[] givens;
+	private final int[] cells; // The grid of the player: the givens and the placements
+	// The placements in the order they were made, one per cell at most, with what became of them and, for the
+	// applied ones, the marks to undo the solver to
+	private final int[] placedCells;
+	private final int[] outcomes;
+	private final int[] trailMarks;
+	private final int[] queueMarks;
+	private int numPlacements;
+	private int numContradicted;
+
+	public SudokuSession(int[][] grid) throws IllegalArgumentException {
+		solver = new SudokuSolver(grid);
+		if (!solver.deduce()) {
+			throw new IllegalArgumentException("The givens are not a valid formation");
+		}
+		layout = solver.getLayout();
+		validator = new GridValidator(layout);
+		givens = new Sudoku(grid).toCellArray();
+		cells = givens.clone();
+		placedCells = new int[layout.numCells];
+		outcomes = new int[layout.numCells];
+		trailMarks = new int[layout.numCells];
+		queueMarks = new int[layout.numCells];
+	}
+
+	public GridLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * Digit of the cell in the grid of the player (a given or a placement), 0 if it is empty
+	 */
+	public int getValue(int row, int col) {
+		return cells[toCell(row, col)];
+	}
+
+	/**
+	 * Puts the digit in the cell, in place of the digit placed there before if any
+	 */
+	public void place(int row, int col, int digit) throws IllegalArgumentException {
+		int cell = toEditableCell(row, col);
+		if (digit < 1 || digit > layout.size) {
+			throw new IllegalArgumentException("No such digit:" + digit);
+		}
+		if (cells[cell] != 0) {
+			remove(row, col);
+		}
+		cells[cell] = digit;
+		placedCells[numPlacements] = cell;
+		apply(numPlacements++);
+	}
+
+	/**
+	 * Empties the cell. Returns false if there was nothing placed in it.
+	 */
+	public boolean remove(int row, int col) throws IllegalArgumentException {
+		int cell = toEditableCell(row, col);
+		if (cells[cell] == 0) {
+			return false;
+		}
+		cells[cell] = 0;
+		int removed = numPlacements - 1;
+		while (placedCells[removed] != cell) {
+			removed--;
+		}
+		if (outcomes[removed] == CONTRADICTED) {
+			numContradicted--;
+		}
+		// The placements before the first applied one from there on are not affected: they did not change the
+		// solver, nor did the removed one unless it is that first applied one
+		int firstApplied = removed;
+		while (firstApplied < numPlacements && outcomes[firstApplied] != APPLIED) {
+			firstApplied++;
+		}
+		if (firstApplied < numPlacements) {
+			solver.undoTo(trailMarks[firstApplied], queueMarks[firstApplied]);
+		}
+		for (int idx = removed + 1; idx < numPlacements; idx++) {
+			placedCells[idx - 1] = placedCells[idx];
+			outcomes[idx - 1] = outcomes[idx];
+		}
+		numPlacements--;
+		for (int idx = (firstApplied == removed) ? removed : firstApplied - 1; idx < numPlacements; idx++) {
+			if (outcomes[idx] == CONTRADICTED) {
+				numContradicted--;
+			}
+			apply(idx);
+		}
+		return true;
+	}
+
+	/**
+	 * Applies the placement of the given index to the solver, unless the rule passes already filled in its
+	 * cell or the solver is at a dead end, and records what became of it
+	 */
+	private void apply(int idx) {
+		int cell = placedCells[idx];
+		int digit = cells[cell];
+		int deducedDigit = solver.getSudoku().getValue(cell);
+		if (solver.isDeadEnd()) {
+			outcomes[idx] = SKIPPED;
+		} else if (deducedDigit == digit) {
+			outcomes[idx] = DEDUCED;
+		} else if (deducedDigit != 0) {
+			outcomes[idx] = CONTRADICTED;
+			numContradicted++;
+		} else {
+			queueMarks[idx] = solver.getQueueMark();
+			trailMarks[idx] = solver.guess(cell, digit);
+			outcomes[idx] = APPLIED;
+		}
+	}
+
+	/**
+	 * Returns true if the placements can not all be part of a solution, as far as the rule passes can tell:
+	 * one of them goes against a digit deduced from the givens and the placements before it, or they leave a cell
+	 * without candidates
+	 */
+	public boolean isDeadEnd() {
+		return numContradicted > 0 || solver.isDeadEnd();
+	}
+
+	/**
+	 * Returns true if the digit in the cell is also in another cell of its row, column or block
+	 */
+	public boolean isConflicting(int row, int col) {
+		int cell = toCell(row, col);
+		if (cells[cell] == 0) {
+			return false;
+		}
+		for (int peer : layout.peers[cell]) {
+			if (cells[peer] == cells[cell]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if every cell is filled in and no digit is there twice in a row, column or block
+	 */
+	public boolean isSolved() {
+		for (int cell = 0; cell < layout.numCells; cell++) {
+			if (cells[cell] == 0) {
+				return false;
+			}
+		}
+		return validator.validate(cells, 0) == GridValidator.VALID;
+	}
+
+	/**
+	 * A cell (row * size + col) that the rule passes filled in from the givens and the placements but the player
+	 * has not, the first one in row-major order; see getDeducedValue() for its digit. -1 if there is none, or if
+	 * the grid is at a dead end.
+	 */
+	public int getHintCell() {
+		if (isDeadEnd()) {
+			return -1;
+		}
+		for (int cell = 0; cell < layout.numCells; cell++) {
+			if (cells[cell] == 0 && solver.getSudoku().getValue(cell) != 0) {
+				return cell;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Digit the rule passes put in the cell, from the givens and the placements, 0 if they did not get to it
+	 */
+	public int getDeducedValue(int row, int col) {
+		return solver.getSudoku().getValue(toCell(row, col));
+	}
+
+	/**
+	 * Digits (bit digit - 1) that can still go in the empty cell after the rule passes, for the pencil marks. 0 if
+	 * the cell is filled in.
+	 */
+	public long getCandidates(int row, int col) {
+		int cell = toCell(row, col);
+		if (cells[cell] != 0) {
+			return 0;
+		}
+		int deducedDigit = solver.getSudoku().getValue(cell);
+		return (deducedDigit != 0) ? 1L << (deducedDigit - 1) : solver.getCandidateDigits(cell);
+	}
+
+	private int toCell(int row, int col) throws IllegalArgumentException {
+		if (row < 0 || row >= layout.size || col < 0 || col >= layout.size) {
+			throw new IllegalArgumentException("No such cell:" + row + "," + col);
+		}
+		return row * layout.size + col;
+	}
+
+	private int toEditableCell(int row, int col) throws IllegalArgumentException {
+		int cell = toCell(row, col);
+		if (givens[cell] != 0) {
+			throw new IllegalArgumentException("Cannot change the given at " + row + "," + col);
+		}
+		return cell;
+	}
+}
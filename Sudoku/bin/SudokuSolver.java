@@ -1,23 +1,80 @@
 import java.util.Scanner;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Set;
-import java.util.HashSet;
 import java.io.File;
+import java.util.concurrent.ForkJoinPool;
+import jdk.jfr.EventType;
 
 public class SudokuSolver {
-	private Sudoku sudoku;
-	private static final int GRID_ROW_SIZE = 9;
-	private static final int BLOCK_SIZE = 3;
-	private int[][] grid;
-	private CandidateArray[][] candidateDigitsForAllCells;
-	private CandidateArray[][] candidateCellArrayForDigitsInRows; // First dimension is for row, second for the digit. Value indicates the Candidate cells for that digit in that row
-	private CandidateArray[][] candidateCellArrayForDigitsInCols; // First dimension is for column, second for the digit. Value indicates the Candidate cells for that digit in that column
-	public CandidateArray[][] candidateCellArrayForDigitsInBlocks; // First dimension is for block, second for the digit. Value indicates the Candidate cells for that digit in that block (3 x 3)
+	public static final int NO_SOLUTION = 0;
+	public static final int UNIQUE_SOLUTION = 1;
+	public static final int MULTIPLE_SOLUTIONS = 2;
+	private static final int MAX_ITERATIONS = 1000;
+	private static final int CANCEL_CHECK_MASK = 0xFF; // The inner loops check for cancellation every 256 polls
+	// Passes that are not one of the strategies, see runPass()
+	private static final int SINGLES_PASS = -2;
+	private static final int BLOCK_LINE_PASS = -1;
+	// Grids from this size on leave the search to the SAT backend, see setSatMinGridSize()
+	private static final int DEFAULT_SAT_MIN_GRID_SIZE = 25;
+	// Cheapest first, see setStrategies()
+	private static final DeductionStrategy[] DEFAULT_STRATEGIES = {
+		new LockedCandidatesStrategy(10),
+		new SubsetStrategy(2, false, 20),
+		new SubsetStrategy(2, true, 30),
+		new SubsetStrategy(3, false, 40),
+		new SubsetStrategy(3, true, 50),
+		new FishStrategy(2, 60),
+		new FishStrategy(3, 70)
+	};
+	// Looked up once: asking the type whether a recording has the event enabled allocates nothing, see init()
+	private static final EventType DEDUCTION_PASS_EVENT_TYPE = EventType.getEventType(DeductionPassEvent.class);
+	// Null unless the JVM has the jdk.incubator.vector module and finds VectorPeerElimination, see setVectorBackend()
+	private static final PeerElimination VECTOR_PEER_ELIMINATION = loadVectorPeerElimination();
+	private final GridLayout layout;
+	private final int gridRowSize;
+	private final int blockSize;
+	private final int blockUnitsStart; // Units are rows, then columns, then blocks
+	private final Sudoku sudoku;
+	private final Sudoku givens;
+	private final GridValidator validator;
+	private boolean contradiction; // Set when a digit gets placed in a cell where it is no longer a candidate, or a cell runs out of candidates
+	private long numEliminations;
+	private long numNodesExplored;
+	private long numIterations;
+	private long numNakedSingles;
+	private long numHiddenSingles;
+	private SolverMetrics metrics; // Null unless set, see setMetrics()
+	private boolean instrumentPasses; // Whether runPass() times and records the passes, decided once in init()
+	private SolveListener listener = NoOpSolveListener.INSTANCE;
+	private DeductionStrategy[] strategies = DEFAULT_STRATEGIES;
+	private int satMinGridSize = DEFAULT_SAT_MIN_GRID_SIZE;
+	private PeerElimination peerElimination; // Null unless the vector backend is used, see setVectorBackend()
+	private final int[] eliminatedPeers; // Scratch of resetDigitAsCandidate() for the vector backend
+	private DeductionStrategy hardestStrategy; // The most expensive strategy that eliminated something, null if none was needed
+	private int[] placementQueue; // Cells filled in but not yet propagated to their peers and units, see setDigitInCell
+	private int placementQueueHead;
+	private int placementQueueTail;
+	private int[] firstSolution; // Of countSolutions(), see countSearch()
+	private boolean firstSolutionFound;
+	private SolverTrail trail; // Null until the search makes its first guess, then kept for the next solves
+	private boolean recordingTrail; // Set by the first guess of a solve and cleared on reset, see recordChange()
+	private ParallelSearch parallelSearch; // Null unless this solver is a branch of solveParallel()
+	private CancellationToken cancellationToken; // Null unless solving through solve(CancellationToken)
+	private boolean cancelled; // Whether the last solve gave up, see isCancelled()
+	private int numCancelPolls; // See pollCancelled()
+	private final long allDigits; // Bits of all the digits of the grid
+	private final long[] candidateDigits; // Indexed by cell. Bit (digit - 1) is set while the digit is a candidate for the cell, 0 once it is filled in
+	private CandidateArray[][] candidateCellArrayForDigitsInUnits; // First dimension is for unit (see GridLayout), second for the digit. Value indicates the Candidate positions for that digit in that unit
+	private long[] placedDigitsInUnits; // Indexed by unit. Bit (digit - 1) is set once the digit has been placed in the unit
+	private final long[] blockRowPositions; // Indexed by row of a block. Bits of the positions in the block on that row
+	private final long[] blockColPositions; // Indexed by column of a block. Bits of the positions in the block on that column
+	private final long[] candidateLinesInBlocks; // Scratch of checkLinesAcrossBlocks(), indexed by block of the band
+	public CandidateArray[][] candidateCellArrayForDigitsInBlocks; // The block units of the above: first dimension is for block, second for the digit. Value indicates the Candidate cells for that digit in that block (e.g. 3 x 3)
 
 	private CandidateArray[][] initCandidateArrays(int rowMax, int colMax, int maxValue) {
-		CandidateArray[][] candidateCellArray = new CandidateArray[GRID_ROW_SIZE][GRID_ROW_SIZE];
+		CandidateArray[][] candidateCellArray = new CandidateArray[rowMax][colMax];
 		for (int row = 0; row < rowMax; row++) {
 			for (int col = 0; col < colMax; col++) {
 				candidateCellArray[row][col] = new CandidateArray(maxValue);
@@ -27,12 +84,235 @@ public class SudokuSolver {
 	}
 
 	public SudokuSolver(int[][] grid) {
-		sudoku = new Sudoku();
-		this.grid = grid;
-		candidateDigitsForAllCells = initCandidateArrays(GRID_ROW_SIZE, GRID_ROW_SIZE, GRID_ROW_SIZE);
-		candidateCellArrayForDigitsInRows = initCandidateArrays(GRID_ROW_SIZE, GRID_ROW_SIZE, GRID_ROW_SIZE);
-		candidateCellArrayForDigitsInCols = initCandidateArrays(GRID_ROW_SIZE, GRID_ROW_SIZE, GRID_ROW_SIZE);
-		candidateCellArrayForDigitsInBlocks = initCandidateArrays(GRID_ROW_SIZE, GRID_ROW_SIZE, GRID_ROW_SIZE);
+		this(new Sudoku(grid).toCellArray());
+	}
+
+	/**
+	 * The size of the grid follows from the number of cells, which has to be the fourth power of a supported
+	 * block size (see GridLayout): 81 for 9x9, 256 for 16x16, 625 for 25x25 and so on
+	 */
+	SudokuSolver(int[] cells) throws IllegalArgumentException {
+		layout = GridLayout.forNumCells(cells.length);
+		if (layout == null) {
+			throw new IllegalArgumentException("Unsupported grid size:" + cells.length);
+		}
+		sudoku = new Sudoku(layout);
+		gridRowSize = layout.size;
+		blockSize = layout.blockSize;
+		blockUnitsStart = 2 * gridRowSize;
+		givens = new Sudoku(cells);
+		validator = new GridValidator(layout);
+		allDigits = (gridRowSize == Long.SIZE) ? -1L : (1L << gridRowSize) - 1;
+		candidateDigits = new long[layout.numCells];
+		Arrays.fill(candidateDigits, allDigits);
+		candidateCellArrayForDigitsInUnits = initCandidateArrays(layout.numUnits, gridRowSize, gridRowSize);
+		candidateCellArrayForDigitsInBlocks = Arrays.copyOfRange(candidateCellArrayForDigitsInUnits,
+			blockUnitsStart, blockUnitsStart + gridRowSize);
+		placementQueue = new int[layout.numCells];
+		eliminatedPeers = new int[layout.numPeers];
+		placedDigitsInUnits = new long[layout.numUnits];
+		blockRowPositions = new long[blockSize];
+		blockColPositions = new long[blockSize];
+		for (int position = 0; position < gridRowSize; position++) {
+			blockRowPositions[position / blockSize] |= 1L << position;
+			blockColPositions[position % blockSize] |= 1L << position;
+		}
+		candidateLinesInBlocks = new long[blockSize];
+	}
+
+	/**
+	 * Copy of the state the parent solver is in between guesses, to explore a branch of the parallel search on.
+	 * The strategies and metrics are shared with the parent, but not the listener, as the branches run on
+	 * several threads at once.
+	 */
+	SudokuSolver(SudokuSolver parent, ParallelSearch parallelSearch) {
+		this(parent.givens.getCells());
+		this.parallelSearch = parallelSearch;
+		strategies = parent.strategies;
+		metrics = parent.metrics;
+		peerElimination = parent.peerElimination;
+		instrumentPasses = parent.instrumentPasses;
+		for (int cell = 0; cell < layout.numCells; cell++) {
+			sudoku.setValue(cell, parent.sudoku.getValue(cell));
+		}
+		System.arraycopy(parent.candidateDigits, 0, candidateDigits, 0, layout.numCells);
+		for (int unit = 0; unit < layout.numUnits; unit++) {
+			for (int digit = 0; digit < gridRowSize; digit++) {
+				candidateCellArrayForDigitsInUnits[unit][digit]
+					.setBitMask(parent.candidateCellArrayForDigitsInUnits[unit][digit].getBitMask());
+			}
+		}
+		System.arraycopy(parent.placedDigitsInUnits, 0, placedDigitsInUnits, 0, layout.numUnits);
+	}
+
+	/**
+	 * Loads a new puzzle of the same size into this solver, in place of the one it was created with or last
+	 * reset to. All the state of the previous solve is cleared, but the listener, strategies and metrics stay.
+	 * Nothing gets allocated, so one solver can go through any number of puzzles (see also SolverPool).
+	 */
+	public void reset(int[][] grid) throws IllegalArgumentException {
+		if (grid.length != gridRowSize) {
+			throw new IllegalArgumentException("Grid size does not match the solver:" + grid.length);
+		}
+		givens.clear();
+		for (int row = 0; row < gridRowSize; row++) {
+			if (grid[row].length != gridRowSize) {
+				throw new IllegalArgumentException("Grid size does not match the solver:" + grid[row].length);
+			}
+			for (int col = 0; col < gridRowSize; col++) {
+				givens.setValue(row, col, grid[row][col]);
+			}
+		}
+		clearState();
+	}
+
+	/**
+	 * Same as reset(int[][]) for a flat grid in row-major order, e.g. a buffer the puzzles get parsed into. The
+	 * cells are copied, so the buffer can be reused straight away.
+	 */
+	void reset(int[] cells) throws IllegalArgumentException {
+		if (cells.length != layout.numCells) {
+			throw new IllegalArgumentException("Grid size does not match the solver:" + cells.length);
+		}
+		givens.clear();
+		for (int cell = 0; cell < layout.numCells; cell++) {
+			givens.setValue(cell, cells[cell]);
+		}
+		clearState();
+	}
+
+	/**
+	 * Brings the solver back to the state it had right after construction, apart from the givens
+	 */
+	private void clearState() {
+		sudoku.clear();
+		Arrays.fill(candidateDigits, allDigits);
+		for (int unit = 0; unit < layout.numUnits; unit++) {
+			for (int digit = 0; digit < gridRowSize; digit++) {
+				candidateCellArrayForDigitsInUnits[unit][digit].reset();
+			}
+		}
+		Arrays.fill(placedDigitsInUnits, 0);
+		contradiction = false;
+		placementQueueHead = 0;
+		placementQueueTail = 0;
+		if (trail != null) {
+			trail.truncate(0);
+		}
+		recordingTrail = false;
+		numEliminations = 0;
+		numNodesExplored = 0;
+		numIterations = 0;
+		numNakedSingles = 0;
+		numHiddenSingles = 0;
+		hardestStrategy = null;
+		firstSolutionFound = false;
+	}
+
+	/**
+	 * Sets the listener to be told about every placement, elimination and iteration. By default they are ignored.
+	 */
+	public void setListener(SolveListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets the strategies to escalate to when the basic rules stall. They are tried in the order of their cost,
+	 * cheapest first. By default these are locked candidates, naked and hidden pairs and triples, X-Wing and
+	 * Swordfish; with none, the solver goes from the basic rules straight to the search.
+	 */
+	public void setStrategies(DeductionStrategy... strategies) {
+		DeductionStrategy[] sortedStrategies = strategies.clone();
+		Arrays.sort(sortedStrategies, new Comparator<DeductionStrategy>() {
+			@Override
+			public int compare(DeductionStrategy first, DeductionStrategy second) {
+				return Integer.compare(first.getCost(), second.getCost());
+			}
+		});
+		this.strategies = sortedStrategies;
+	}
+
+	/**
+	 * Sets the metrics to add the deductions of every solve to, including the search branches. By default there
+	 * are none, and the passes are not timed.
+	 */
+	public void setMetrics(SolverMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Sets the grid size (number of rows) from which the search that follows the rule passes is done by the SAT
+	 * backend (see SudokuCnf and SatSolver) rather than by guessing: on large grids the search may have to go
+	 * through an exponential number of guesses, where clause learning gets to the solution in a bounded number
+	 * of conflicts. 25 by default; Integer.MAX_VALUE to never use it.
+	 */
+	public void setSatMinGridSize(int satMinGridSize) {
+		this.satMinGridSize = satMinGridSize;
+	}
+
+	/**
+	 * Sets whether placements are propagated to the peers of their cell by the vector backend (see
+	 * PeerElimination), a vector of peers at a time, instead of one peer at a time. Returns false, leaving the
+	 * solver on the latter, if the backend is not available: it needs the JVM to run with
+	 * --add-modules jdk.incubator.vector and to find VectorPeerElimination, which is compiled apart from the other
+	 * sources (see the 'vector' directory). Off by default.
+	 */
+	public boolean setVectorBackend(boolean enabled) {
+		peerElimination = enabled ? VECTOR_PEER_ELIMINATION : null;
+		return peerElimination != null || !enabled;
+	}
+
+	/**
+	 * Returns true if the vector backend can be used, see setVectorBackend()
+	 */
+	public static boolean isVectorBackendAvailable() {
+		return VECTOR_PEER_ELIMINATION != null;
+	}
+
+	private static PeerElimination loadVectorPeerElimination() {
+		// Looking for the module first keeps the class from failing to link halfway through loading
+		if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+			return null;
+		}
+		try {
+			return (PeerElimination) Class.forName("VectorPeerElimination").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			return null;
+		} catch (LinkageError e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Goes back to the default listener, strategies and SAT threshold, to the scalar peer elimination and to no
+	 * metrics, for a solver handed out again by SolverPool
+	 */
+	void resetSettings() {
+		listener = NoOpSolveListener.INSTANCE;
+		strategies = DEFAULT_STRATEGIES;
+		satMinGridSize = DEFAULT_SAT_MIN_GRID_SIZE;
+		peerElimination = null;
+		metrics = null;
+	}
+
+	/**
+	 * The strategies used unless others are set, cheapest first
+	 */
+	static DeductionStrategy[] getDefaultStrategies() {
+		return DEFAULT_STRATEGIES.clone();
+	}
+
+	/**
+	 * The most expensive strategy that eliminated something while solving, not counting the search branches.
+	 * Null if the basic rules (singles and block-line interactions) were enough, or had to be followed by the
+	 * search straight away.
+	 */
+	public DeductionStrategy getHardestStrategy() {
+		return hardestStrategy;
+	}
+
+	public Sudoku getSudoku() {
+		return sudoku;
 	}
 
 	public void printGrid() {
@@ -55,407 +335,872 @@ public class SudokuSolver {
 	 * same row for the other horizontal neighnouring blocks.
 	 */
 	private void checkPossiblePositionsForDigitAcrossBlocks() {
-		// horizontal
-		for (int blockRow = 0; blockRow < BLOCK_SIZE; blockRow++) {
-			int blockIndex = blockRow * BLOCK_SIZE;
-			for (int value = 0; value < GRID_ROW_SIZE; value++) {
-				if (candidateCellArrayForDigitsInBlocks[blockIndex][value].moreThanOneBitsSet() &&
-						candidateCellArrayForDigitsInBlocks[blockIndex + 1][value].moreThanOneBitsSet() &&
-						candidateCellArrayForDigitsInBlocks[blockIndex + 2][value].moreThanOneBitsSet() ) {
-
-					// For each pair of blocks, check the #distinct rows that have the candidate cells.
-					// If its 2, reset all the cells in that row for the third block as from being the candidates
-					List<Set<Integer>> candidateRowsForBlocks = new ArrayList<Set<Integer>>();
-					for (int count = 0; count < BLOCK_SIZE; count++) {
-						Set<Integer> candidateRows = Helper.getCandidateRowsForDigitInBlock(
-							candidateCellArrayForDigitsInBlocks, blockIndex + count, value, BLOCK_SIZE);
-						candidateRowsForBlocks.add(candidateRows);
-					}
+		// horizontal: the blocks of a band are next to each other, and a row of a block is blockSize cells in a row
+		for (int blockRow = 0; blockRow < blockSize; blockRow++) {
+			for (int value = 0; value < gridRowSize && !pollCancelled(); value++) {
+				checkLinesAcrossBlocks(blockRow * blockSize, 1, blockRowPositions, blockSize, 1, value);
+			}
+		}
 
-					for (int combination = 0; combination < BLOCK_SIZE; combination++) {
-						List<Set<Integer>> pairOfCandidateRowSets = new ArrayList<Set<Integer>>();
-						pairOfCandidateRowSets.add(candidateRowsForBlocks.get(combination));
-						pairOfCandidateRowSets.add(candidateRowsForBlocks.get((combination + 1) % BLOCK_SIZE));
-						if (Helper.isSetListComplete(pairOfCandidateRowSets)) {
-							for (int row : candidateRowsForBlocks.get(combination)) {
-								for (int cell = row * BLOCK_SIZE; cell < (row + 1) * BLOCK_SIZE; cell++) {
-
-									// Find the blockindex 2 hops away horizontally
-									// e.g. if the combination is for blocks 4 and 5, it needs the horizontal block
-									// that is 2 hops away from 4 i.e. 3.
-									int tmpBlockIndex = blockIndex + (combination + 2) % BLOCK_SIZE;
-									candidateCellArrayForDigitsInBlocks[tmpBlockIndex][value].reSetBit(cell + 1);
-									if (candidateCellArrayForDigitsInBlocks[tmpBlockIndex][value].isOnlyBitSet()) {
-										int onlyCandidateCell = candidateCellArrayForDigitsInBlocks[tmpBlockIndex][value].getNumberForBitSet() - 1;
-										int rowForCell = Helper.getRowInGridForCellAndBlock(onlyCandidateCell, tmpBlockIndex, GRID_ROW_SIZE, BLOCK_SIZE);	
-										int colForCell = Helper.getColInGridForCellAndBlock(onlyCandidateCell, tmpBlockIndex, GRID_ROW_SIZE, BLOCK_SIZE);	
-										if (sudoku.getValue(rowForCell, colForCell) == 0) {
-											setDigitInCell(rowForCell, colForCell, value + 1);
-										}	
-									}
-								}
-							}
-						}
-					}
-				}
+		// vertical: the blocks of a stack are blockSize apart, and so are the cells of a column of a block
+		for (int blockCol = 0; blockCol < blockSize; blockCol++) {
+			for (int value = 0; value < gridRowSize && !pollCancelled(); value++) {
+				checkLinesAcrossBlocks(blockCol, blockSize, blockColPositions, 1, blockSize, value);
+			}
+		}
+	}
 
-				// Check if the digit is not set in at least two blocks in the row
-				int numBlocksInWhichNotSet = 0;
-				for (int count = 0; count < BLOCK_SIZE; count++) {
-					if (candidateCellArrayForDigitsInBlocks[blockIndex + count][value].moreThanOneBitsSet()) {
-						numBlocksInWhichNotSet++;
-					}
-				}
+	/**
+	 * The checks above for the digit (value + 1) in one band (or stack): the blockSize blocks starting at
+	 * firstBlockIndex, blockStep apart. The lines (rows or columns) of a block are the bits of linePositions over
+	 * its cells, and line l of a block is made of the cells l * lineStep + i * cellStep. Each block keeps its
+	 * candidate lines for the digit as a bitmask, so nothing gets allocated.
+	 */
+	private void checkLinesAcrossBlocks(int firstBlockIndex, int blockStep, long[] linePositions, int lineStep,
+			int cellStep, int value) {
+		if (hasSeveralCandidateCellsInAllBlocks(firstBlockIndex, blockStep, value)) {
+			// For each pair of blocks, check the #distinct lines that have the candidate cells.
+			// If its 2, reset all the cells in those lines for the other blocks as from being the candidates
+			for (int count = 0; count < blockSize; count++) {
+				candidateLinesInBlocks[count] = getCandidateLines(firstBlockIndex + count * blockStep, value, linePositions);
+			}
 
-				// At least two blocks should not have that digit set. Otherwise, there is nothing to do
-				if (numBlocksInWhichNotSet <= 1) {
+			for (int combination = 0; combination < blockSize; combination++) {
+				long pairOfCandidateLines = candidateLinesInBlocks[combination]
+					| candidateLinesInBlocks[(combination + 1) % blockSize];
+				if (Long.bitCount(pairOfCandidateLines) != 2) {
 					continue;
 				}
-
-				// For each pair of blocks, check the #distinct rows that have the candidate cells.
-				// If its 2, reset all the cells in that row for the third block as from being the candidates
-				List<Set<Integer>> candidateRowsForBlocks = new ArrayList<Set<Integer>>(BLOCK_SIZE);
-				int[] numCandidateRowsPerBlock = new int[BLOCK_SIZE];
-
-				// At least one of the blocks should have exactly one candidate row, otherwise nothing can be done here
-				int indexOfBlockWithJustOneCandidateRow = -1;
-				int indexOfBlockWithTwoOrMoreCandidateRows = -1;
-				for (int count = 0; count < BLOCK_SIZE; count++) {
-					Set<Integer> candidateRows = Helper.getCandidateRowsForDigitInBlock(candidateCellArrayForDigitsInBlocks,
-						blockIndex + count, value, BLOCK_SIZE);
-					candidateRowsForBlocks.add(candidateRows);
-					numCandidateRowsPerBlock[count] = candidateRows.size();
-
-					if (numCandidateRowsPerBlock[count] == 1) {
-						indexOfBlockWithJustOneCandidateRow = count;
-					} else if (numCandidateRowsPerBlock[count] >= 2) {
-						indexOfBlockWithTwoOrMoreCandidateRows = count;
+				for (long lines = candidateLinesInBlocks[combination]; lines != 0; lines &= lines - 1) {
+					int line = Long.numberOfTrailingZeros(lines);
+					for (int idx = 0; idx < blockSize; idx++) {
+						// The blocks 2 or more hops away along the band, e.g. block 3 for the pair of blocks 4 and
+						// 5. On larger grids the pair takes up both lines in all the other blocks of the band.
+						for (int hops = 2; hops < blockSize; hops++) {
+							eliminateCandidateInBlock(firstBlockIndex + ((combination + hops) % blockSize) * blockStep,
+								line * lineStep + idx * cellStep, value);
+						}
 					}
 				}
+			}
+		}
 
-				if (indexOfBlockWithJustOneCandidateRow == -1 || indexOfBlockWithTwoOrMoreCandidateRows == -1) {
-					continue;
-				}
+		// At least two blocks should not have that digit set. Otherwise, there is nothing to do
+		int numBlocksInWhichNotSet = 0;
+		for (int count = 0; count < blockSize; count++) {
+			if (candidateCellArrayForDigitsInBlocks[firstBlockIndex + count * blockStep][value].moreThanOneBitsSet()) {
+				numBlocksInWhichNotSet++;
+			}
+		}
+		if (numBlocksInWhichNotSet <= 1) {
+			return;
+		}
 
-				int singleCandidateRow = -1;
-				singleCandidateRow = candidateRowsForBlocks.get(indexOfBlockWithJustOneCandidateRow).iterator().next();
-				for (int cell = singleCandidateRow * BLOCK_SIZE; cell < (singleCandidateRow + 1) * BLOCK_SIZE; cell++) {
-					// Find the blockindex where to reset the candidate cells
-					int tmpBlockIndex = blockIndex + indexOfBlockWithTwoOrMoreCandidateRows;
-					candidateCellArrayForDigitsInBlocks[tmpBlockIndex][value].reSetBit(cell + 1);
-					if (candidateCellArrayForDigitsInBlocks[tmpBlockIndex][value].isOnlyBitSet()) {
-						int onlyCandidateCell = candidateCellArrayForDigitsInBlocks[tmpBlockIndex][value].getNumberForBitSet() - 1;
-						int rowForCell = Helper.getRowInGridForCellAndBlock(onlyCandidateCell, tmpBlockIndex, GRID_ROW_SIZE, BLOCK_SIZE);	
-						int colForCell = Helper.getColInGridForCellAndBlock(onlyCandidateCell, tmpBlockIndex, GRID_ROW_SIZE, BLOCK_SIZE);	
-
-						if (sudoku.getValue(rowForCell, colForCell) == 0) {
-							setDigitInCell(rowForCell, colForCell, value + 1);
-						}	
-					}
-				}
+		// At least one of the blocks should have exactly one candidate line, and another one two or more, otherwise
+		// nothing can be done here
+		int indexOfBlockWithJustOneCandidateLine = -1;
+		int indexOfBlockWithTwoOrMoreCandidateLines = -1;
+		for (int count = 0; count < blockSize; count++) {
+			candidateLinesInBlocks[count] = getCandidateLines(firstBlockIndex + count * blockStep, value, linePositions);
+			int numCandidateLines = Long.bitCount(candidateLinesInBlocks[count]);
+			if (numCandidateLines == 1) {
+				indexOfBlockWithJustOneCandidateLine = count;
+			} else if (numCandidateLines >= 2) {
+				indexOfBlockWithTwoOrMoreCandidateLines = count;
 			}
 		}
+		if (indexOfBlockWithJustOneCandidateLine == -1 || indexOfBlockWithTwoOrMoreCandidateLines == -1) {
+			return;
+		}
 
-		// vertical
-		for (int blockCol  = 0; blockCol < BLOCK_SIZE; blockCol++) {
-			int blockIndex = blockCol;
-			for (int value = 0; value < GRID_ROW_SIZE; value++) {
-				if (candidateCellArrayForDigitsInBlocks[blockIndex][value].moreThanOneBitsSet() &&
-							candidateCellArrayForDigitsInBlocks[blockIndex + BLOCK_SIZE][value].moreThanOneBitsSet() &&
-							candidateCellArrayForDigitsInBlocks[blockIndex + 2 * BLOCK_SIZE][value].moreThanOneBitsSet()) {
-						candidateCellArrayForDigitsInBlocks[blockIndex][value].printCandidateArray();	
-						candidateCellArrayForDigitsInBlocks[blockIndex+BLOCK_SIZE][value].printCandidateArray();	
-						candidateCellArrayForDigitsInBlocks[blockIndex+2*BLOCK_SIZE][value].printCandidateArray();	
+		int singleCandidateLine = Long.numberOfTrailingZeros(candidateLinesInBlocks[indexOfBlockWithJustOneCandidateLine]);
+		for (int idx = 0; idx < blockSize; idx++) {
+			eliminateCandidateInBlock(firstBlockIndex + indexOfBlockWithTwoOrMoreCandidateLines * blockStep,
+				singleCandidateLine * lineStep + idx * cellStep, value);
+		}
+	}
 
-						// For each pair of blocks, check the #distinct cols that have the candidate cells.
-						// If its 2, reset all the cells in that col for the third block as from being the candidates
-						List<Set<Integer>> candidateColsForBlocks = new ArrayList<Set<Integer>>();
+	/**
+	 * Lines of the block (bit l for line l, see checkLinesAcrossBlocks()) in which the digit (value + 1) is still
+	 * a candidate
+	 */
+	private long getCandidateLines(int blockIndex, int value, long[] linePositions) {
+		long positions = candidateCellArrayForDigitsInBlocks[blockIndex][value].getBitMask();
+		long lines = 0;
+		for (int line = 0; line < blockSize; line++) {
+			if ((positions & linePositions[line]) != 0) {
+				lines |= 1L << line;
+			}
+		}
+		return lines;
+	}
 
-						for (int count = 0; count < BLOCK_SIZE; count++) {
-							Set<Integer> candidateCols = Helper.getCandidateColsForDigitInBlock(
-								candidateCellArrayForDigitsInBlocks, blockIndex + count * BLOCK_SIZE, value, BLOCK_SIZE);
-							candidateColsForBlocks.add(candidateCols);
-						}
+	/**
+	 * Eliminates the digit (value + 1) as a candidate for the cell of the block, and places it if that leaves a
+	 * single candidate cell in the block
+	 */
+	private void eliminateCandidateInBlock(int blockIndex, int cellInBlock, int value) {
+		eliminateCandidate(layout.unitCells[blockUnitsStart + blockIndex][cellInBlock], value + 1);
+		if (candidateCellArrayForDigitsInBlocks[blockIndex][value].isOnlyBitSet()) {
+			int onlyCandidateCell = candidateCellArrayForDigitsInBlocks[blockIndex][value].getNumberForBitSet() - 1;
+			int gridCell = layout.unitCells[blockUnitsStart + blockIndex][onlyCandidateCell];
+			if (sudoku.getValue(gridCell) == 0) {
+				setDigitInCell(gridCell, value + 1);
+			}
+		}
+	}
 
-						for (int combination = 0; combination < BLOCK_SIZE; combination++) {
-							List<Set<Integer>> pairOfCandidateColSets = new ArrayList<Set<Integer>>();
-							pairOfCandidateColSets.add(candidateColsForBlocks.get(combination));
-							pairOfCandidateColSets.add(candidateColsForBlocks.get((combination + 1) % BLOCK_SIZE));
-							if (Helper.isSetListComplete(pairOfCandidateColSets)) {
-								for (int col : candidateColsForBlocks.get(combination)) {
-									for (int cell = col; cell < GRID_ROW_SIZE; cell += BLOCK_SIZE) {
-										// Find the blockindex 2 hops away vertically.
-										// e.g. if the combination is for blocks 4 and 7, it needs the vertical block
-										// that is 2 hops away from 4 i.e. 1.
-										int tmpBlockIndex = (blockIndex + (combination + 2) * BLOCK_SIZE) % GRID_ROW_SIZE;
-										candidateCellArrayForDigitsInBlocks[tmpBlockIndex][value].reSetBit(cell + 1);
-										if (candidateCellArrayForDigitsInBlocks[tmpBlockIndex][value].isOnlyBitSet()) {
-											int onlyCandidateCell = candidateCellArrayForDigitsInBlocks[tmpBlockIndex][value].getNumberForBitSet() - 1;
-											int rowForCell = Helper.getRowInGridForCellAndBlock(onlyCandidateCell, tmpBlockIndex, GRID_ROW_SIZE, BLOCK_SIZE);	
-											int colForCell = Helper.getColInGridForCellAndBlock(onlyCandidateCell, tmpBlockIndex, GRID_ROW_SIZE, BLOCK_SIZE);	
-											if (sudoku.getValue(rowForCell, colForCell) == 0) {
-												setDigitInCell(rowForCell, colForCell, value + 1);
-											}	
-										}
-									}
-								}
-							}
-						}	
-				}
+	/**
+	 * Returns true if the digit (value + 1) has more than one candidate cell in each of the blocks of a band: the
+	 * blockSize blocks starting at firstBlockIndex, blockStep apart (1 for a horizontal band, blockSize for a
+	 * vertical one)
+	 */
+	private boolean hasSeveralCandidateCellsInAllBlocks(int firstBlockIndex, int blockStep, int value) {
+		for (int count = 0; count < blockSize; count++) {
+			if (!candidateCellArrayForDigitsInBlocks[firstBlockIndex + count * blockStep][value].moreThanOneBitsSet()) {
+				return false;
+			}
+		}
+		return true;
+	}
 
-				// Check if the digit is not set in at least two blocks in the column
-				int numBlocksInWhichNotSet = 0;
-				for (int count = 0; count < BLOCK_SIZE; count++) {
-					if (candidateCellArrayForDigitsInBlocks[blockIndex + count * BLOCK_SIZE][value].moreThanOneBitsSet()) {
-						numBlocksInWhichNotSet++;
-					}
-				}
+	private void resetCellsAsCandidate(int cell, int value) {
+		// Reset this cell from being a candidate for all digits in this row, column and block
+		for (int kind = 0; kind < GridLayout.UNITS_PER_CELL; kind++) {
+			int unit = layout.cellUnits[cell][kind];
+			int position = layout.positionInUnit[cell][kind];
+			for (int digit = 1; digit <= gridRowSize; digit++) {
+				removeCandidatePosition(unit, digit, position);
+				checkForOnlyCandidateCellInUnit(unit, digit);
+			}
+		}
+	}
 
-				// At least two blocks should not have that digit set. Otherwise, there is nothing to do
-				if (numBlocksInWhichNotSet <= 1) {
-					continue;
-				}
+	/**
+	 * If the digit has just one candidate position left in the unit, places it there
+	 */
+	private void checkForOnlyCandidateCellInUnit(int unit, int digit) {
+		CandidateArray candidateCells = candidateCellArrayForDigitsInUnits[unit][digit - 1];
+		if (candidateCells.isOnlyBitSet()) {
+			// Since the numbers set start from 1, subtract 1 to get the position for the only candidate for this digit
+			int onlyCandidateCell = layout.unitCells[unit][candidateCells.getNumberForBitSet() - 1];
+			if (sudoku.getValue(onlyCandidateCell) == 0) {
+				numHiddenSingles++;
+				setDigitInCell(onlyCandidateCell, digit);
+			}
+		}
+	}
 
-				// For each pair of blocks, check the #distinct columns that have the candidate cells.
-				// If its 2, reset all the cells in that column for the third block as from being the candidates
-				List<Set<Integer>> candidateColsForBlocks = new ArrayList<Set<Integer>>(BLOCK_SIZE);
-				int[] numCandidateColsPerBlock = new int[BLOCK_SIZE];
-
-				// At least one of the blocks should have exactly one candidate column, otherwise nothing can be done here
-				int indexOfBlockWithJustOneCandidateCols = -1;
-				int indexOfBlockWithTwoOrMoreCandidateCols = -1;
-
-				for (int count = 0; count < BLOCK_SIZE; count++) {
-					Set<Integer> candidateCols = Helper.getCandidateColsForDigitInBlock(candidateCellArrayForDigitsInBlocks,
-						blockIndex + count * BLOCK_SIZE, value, BLOCK_SIZE);
-					candidateColsForBlocks.add(candidateCols);
-					numCandidateColsPerBlock[count] = candidateCols.size();
-
-					if (numCandidateColsPerBlock[count] == 1) {
-						indexOfBlockWithJustOneCandidateCols = count;
-					} else if (numCandidateColsPerBlock[count] >= 2) {
-						indexOfBlockWithTwoOrMoreCandidateCols = count;
-					}
-				}
+	/**
+	 * Resets the digit from being a candidate for the (unsolved) cell, and the cell from being a candidate position
+	 * for the digit in its row, column and block. Only the cell and those three units are affected, so only they
+	 * are checked for a single left over candidate, which gets queued for placement.
+	 */
+	private void eliminateCandidate(int cell, int digit) {
+		long digitBit = 1L << (digit - 1);
+		long candidates = candidateDigits[cell];
+		if ((candidates & digitBit) == 0) {
+			return;
+		}
+		recordChange(cell, candidates);
+		candidates &= ~digitBit;
+		candidateDigits[cell] = candidates;
+		candidateEliminated(cell, digit, (candidates & (candidates - 1)) == 0);
+	}
 
-				if (indexOfBlockWithJustOneCandidateCols == -1 || indexOfBlockWithTwoOrMoreCandidateCols == -1) {
-					continue;
-				}
+	/**
+	 * The rest of eliminateCandidate() once the digit is gone from the candidates of the cell (and that change is
+	 * recorded): counts it, places the digit left if it was the last but one (a naked single) or flags a
+	 * contradiction if none is left, and takes the cell out of the candidate positions of the digit in its units
+	 */
+	private void candidateEliminated(int cell, int digit, boolean atMostOneLeft) {
+		numEliminations++;
+		listener.onElimination(sudoku, cell, digit);
+		if (atMostOneLeft) {
+			long candidates = candidateDigits[cell];
+			if (candidates != 0) {
+				numNakedSingles++;
+				setDigitInCell(cell, Long.numberOfTrailingZeros(candidates) + 1);
+			} else {
+				contradiction = true;
+			}
+		}
 
-				int singleCandidateCol = -1;
-				singleCandidateCol = candidateColsForBlocks.get(indexOfBlockWithJustOneCandidateCols).iterator().next();
-				for (int cell = singleCandidateCol; cell < GRID_ROW_SIZE; cell += BLOCK_SIZE) {
-					// Find the blockindex where to reset the candidate cells
-					int tmpBlockIndex = (blockIndex + indexOfBlockWithTwoOrMoreCandidateCols * BLOCK_SIZE) % GRID_ROW_SIZE;
-					candidateCellArrayForDigitsInBlocks[tmpBlockIndex][value].reSetBit(cell + 1);
-					if (candidateCellArrayForDigitsInBlocks[tmpBlockIndex][value].isOnlyBitSet()) {
-						int onlyCandidateCell = candidateCellArrayForDigitsInBlocks[tmpBlockIndex][value].getNumberForBitSet() - 1;
-						int rowForCell = Helper.getRowInGridForCellAndBlock(onlyCandidateCell, tmpBlockIndex, GRID_ROW_SIZE, BLOCK_SIZE);	
-						int colForCell = Helper.getColInGridForCellAndBlock(onlyCandidateCell, tmpBlockIndex, GRID_ROW_SIZE, BLOCK_SIZE);	
-
-						if (sudoku.getValue(rowForCell, colForCell) == 0) {
-							setDigitInCell(rowForCell, colForCell, value + 1);
-						}	
-					}
-				}	
+		for (int kind = 0; kind < GridLayout.UNITS_PER_CELL; kind++) {
+			int unit = layout.cellUnits[cell][kind];
+			removeCandidatePosition(unit, digit, layout.positionInUnit[cell][kind]);
+			checkForOnlyCandidateCellInUnit(unit, digit);
+		}
+	}
+
+	/**
+	 * Resets the position from being a candidate for the digit in the unit, if it still is one
+	 */
+	private void removeCandidatePosition(int unit, int digit, int position) {
+		CandidateArray candidateCells = candidateCellArrayForDigitsInUnits[unit][digit - 1];
+		if (candidateCells.isBitSet(position + 1)) {
+			recordChange(layout.numCells + unit * gridRowSize + digit - 1, candidateCells.getBitMask());
+			candidateCells.reSetBit(position + 1);
+		}
+	}
+
+	/**
+	 * Records a change on the trail, if the search has started guessing: up to then nothing is ever undone, so a
+	 * solver that gets reset (see SolverPool) does not record the deductions of its next puzzle before the search.
+	 * The slots are the cells for their candidate digits (0..numCells-1), numCells + unit * size + digit - 1
+	 * for the candidate positions of a digit in a unit, numCells + numUnits * size + unit for the digits placed
+	 * in a unit, and -(cell + 1) for the value of a cell.
+	 */
+	private void recordChange(int slot, long oldValue) {
+		if (recordingTrail) {
+			trail.record(slot, oldValue);
+		}
+	}
+
+	/**
+	 * Undoes the changes recorded since the trail had trailMark entries and the placement queue ended at
+	 * queueMark, bringing the solver back to the state it was in at that point. Only called between guesses,
+	 * when the queue was drained and there was no contradiction.
+	 */
+	void undoTo(int trailMark, int queueMark) {
+		for (int idx = trail.size() - 1; idx >= trailMark; idx--) {
+			int slot = trail.getSlot(idx);
+			if (slot < 0) {
+				sudoku.setValue(-slot - 1, 0);
+			} else if (slot < layout.numCells) {
+				candidateDigits[slot] = trail.getOldValue(idx);
+			} else if (slot < layout.numCells + layout.numUnits * gridRowSize) {
+				int unitSlot = slot - layout.numCells;
+				candidateCellArrayForDigitsInUnits[unitSlot / gridRowSize][unitSlot % gridRowSize]
+					.setBitMask(trail.getOldValue(idx));
+			} else {
+				placedDigitsInUnits[slot - layout.numCells - layout.numUnits * gridRowSize] = trail.getOldValue(idx);
 			}
-		}	
+		}
+		trail.truncate(trailMark);
+		placementQueueHead = queueMark;
+		placementQueueTail = queueMark;
+		contradiction = false;
 	}
 
-	private void resetCellsAsCandidate(int row, int col, int value) {
-		// Reset this cell from being a candidate for all digits in this row, column and block
-		for (int digit = 1; digit <= GRID_ROW_SIZE; digit++) {
-			candidateCellArrayForDigitsInRows[row][digit - 1].reSetBit(col + 1);
-			if (candidateCellArrayForDigitsInRows[row][digit - 1].isOnlyBitSet()) {
-				// Since the numbers set start from 1, subtract 1 to get the column index for the only candidate for this digit
-				int onlyCandidateCol = candidateCellArrayForDigitsInRows[row][digit - 1].getNumberForBitSet() - 1;
-				if (sudoku.getValue(row, onlyCandidateCol) == 0) {
-					setDigitInCell(row, onlyCandidateCol, digit);
-				}	
-			}
-		}
-
-		for (int digit = 1; digit <= GRID_ROW_SIZE; digit++) {
-			candidateCellArrayForDigitsInCols[col][digit - 1].reSetBit(row + 1);
-			if (candidateCellArrayForDigitsInCols[col][digit - 1].isOnlyBitSet()) {
-				// Since the numbers set start from 1, subtract 1 to get the row index for the only candidate for this digit
-				int onlyCandidateRow = candidateCellArrayForDigitsInCols[col][digit - 1].getNumberForBitSet() - 1;
-				if (sudoku.getValue(onlyCandidateRow, col) == 0) {
-					setDigitInCell(onlyCandidateRow, col, digit);
-				}	
-			}
-		}	
-
-		int blockIndex = Helper.getBlockIndexFromRowCol(row, col, GRID_ROW_SIZE, BLOCK_SIZE);
-		int cellIndexInBlock = Helper.getCellIndexWithinBlockFromRowCol(row, col, GRID_ROW_SIZE, BLOCK_SIZE);
-		for (int digit = 1; digit <= GRID_ROW_SIZE; digit++) {
-			candidateCellArrayForDigitsInBlocks[blockIndex][digit - 1].reSetBit(cellIndexInBlock + 1);
-			if (candidateCellArrayForDigitsInBlocks[blockIndex][digit - 1].isOnlyBitSet()) {
-				// Since the numbers set start from 1, subtract 1 to get the cellIndex for the only candidate for this digit
-				int onlyCandidateCell = candidateCellArrayForDigitsInBlocks[blockIndex][digit - 1].getNumberForBitSet() - 1;
-				int candidateCellRow = blockIndex / BLOCK_SIZE * BLOCK_SIZE + (onlyCandidateCell / BLOCK_SIZE);
-				int candidateCellCol = (blockIndex % BLOCK_SIZE) * BLOCK_SIZE + (onlyCandidateCell % BLOCK_SIZE);
-				if (sudoku.getValue(candidateCellRow, candidateCellCol) == 0) {
-					setDigitInCell(candidateCellRow, candidateCellCol, digit);
-				}	
-			}
-		}	
-
-		// Reset the cells in the same row in other blocks from being candidate for this digit. Similarly, reset 
-		// the cells in the same column in other being from being candidate
-	}
-
-	private void resetDigitAsCandidate(int row, int col, int value) {
-		// Reset this value/digit from being a candidate for all cells in this row, column and block
-		for (int tmpCol = 0; tmpCol < GRID_ROW_SIZE; tmpCol++) {
-			if (tmpCol == col) {
-				continue;
+	/**
+	 * End of the placement queue, to be passed to undoTo() along with the trail mark of a guess
+	 */
+	int getQueueMark() {
+		return placementQueueTail;
+	}
+
+	GridLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * Candidate digits of the cell as a bitmask (bit digit - 1), 0 once the cell is solved. For the strategies.
+	 */
+	long getCandidateDigits(int cell) {
+		return candidateDigits[cell];
+	}
+
+	/**
+	 * Candidate positions of the digit in the unit as a bitmask (bit position), 0 once the digit is placed in the
+	 * unit. For the strategies.
+	 */
+	long getCandidatePositions(int unit, int digit) {
+		return candidateCellArrayForDigitsInUnits[unit][digit - 1].getBitMask();
+	}
+
+	/**
+	 * Eliminates the digit as a candidate for the cell on behalf of a strategy. Returns true if it was one.
+	 */
+	boolean eliminate(int cell, int digit) {
+		long previousNumEliminations = numEliminations;
+		eliminateCandidate(cell, digit);
+		return numEliminations != previousNumEliminations;
+	}
+
+	private void resetDigitAsCandidate(int cell, int value) {
+		// Reset this value/digit from being a candidate for all cells in this row, column and block. That also takes
+		// care of the neighbouring blocks, whose cells in the same row or column stop being candidates for it
+		if (peerElimination == null) {
+			for (int peer : layout.peers[cell]) {
+				eliminateCandidate(peer, value);
 			}
-			candidateDigitsForAllCells[row][tmpCol].reSetBit(value);
-			candidateCellArrayForDigitsInRows[row][value-1].reSetBit(tmpCol+1);
-			if (sudoku.getValue(row, tmpCol) == 0 && candidateDigitsForAllCells[row][tmpCol].isOnlyBitSet()) {
-				int onlyCandidate = candidateDigitsForAllCells[row][tmpCol].getNumberForBitSet();
-				setDigitInCell(row, tmpCol, onlyCandidate);
+			return;
+		}
+		// The vector backend clears the digit from all the peers at once, so their changes are recorded before any
+		// of them is followed up. A peer filled in by what an earlier one led to is left alone, as it would be by
+		// eliminateCandidate().
+		long digitBit = 1L << (value - 1);
+		int numEliminated = peerElimination.eliminate(candidateDigits, layout.peers[cell], digitBit, eliminatedPeers);
+		for (int idx = 0; idx < numEliminated; idx++) {
+			int peer = (eliminatedPeers[idx] < 0) ? -eliminatedPeers[idx] - 1 : eliminatedPeers[idx];
+			recordChange(peer, candidateDigits[peer] | digitBit);
+		}
+		for (int idx = 0; idx < numEliminated; idx++) {
+			int peer = (eliminatedPeers[idx] < 0) ? -eliminatedPeers[idx] - 1 : eliminatedPeers[idx];
+			if (sudoku.getValue(peer) == 0) {
+				candidateEliminated(peer, value, eliminatedPeers[idx] < 0);
 			}
 		}
+	}
 
-		for (int tmpRow = 0; tmpRow < GRID_ROW_SIZE; tmpRow++) {
-			if (tmpRow == row) {
-				continue;
+	/**
+	 * Fills in the cell, which leaves it without candidates, and queues it up, so that its peers and units get
+	 * updated when the queue is drained. Nothing is propagated from here, so a placement never recurses into
+	 * further placements.
+	 */
+	private void setDigitInCell(int cell, int value) {
+		long digitBit = 1L << (value - 1);
+		if ((candidateDigits[cell] & digitBit) == 0) {
+			// Only happens while exploring a wrong guess: some peer already holds this value
+			contradiction = true;
+		}
+		recordChange(cell, candidateDigits[cell]);
+		candidateDigits[cell] = 0;
+		for (int kind = 0; kind < GridLayout.UNITS_PER_CELL; kind++) {
+			int unit = layout.cellUnits[cell][kind];
+			if ((placedDigitsInUnits[unit] & digitBit) != 0) {
+				// Both got the digit while it was still a candidate for either, before the other was propagated
+				contradiction = true;
 			}
-			candidateDigitsForAllCells[tmpRow][col].reSetBit(value);
-			candidateCellArrayForDigitsInCols[col][value-1].reSetBit(tmpRow+1);
-			if (sudoku.getValue(tmpRow, col) == 0 && candidateDigitsForAllCells[tmpRow][col].isOnlyBitSet()) {
-				int onlyCandidate = candidateDigitsForAllCells[tmpRow][col].getNumberForBitSet();
-				setDigitInCell(tmpRow, col, onlyCandidate);
+			recordChange(layout.numCells + layout.numUnits * gridRowSize + unit, placedDigitsInUnits[unit]);
+			placedDigitsInUnits[unit] |= digitBit;
+		}
+		recordChange(-(cell + 1), 0);
+		sudoku.setValue(cell, value);
+		listener.onPlacement(sudoku, cell, value);
+		placementQueue[placementQueueTail++] = cell;
+	}
+
+	/**
+	 * Processes the queued placements in order. Each cell is queued exactly once, when it gets its value, and its
+	 * eliminations may queue further cells at the tail.
+	 */
+	private void propagatePlacements() {
+		while (placementQueueHead < placementQueueTail && !contradiction && !pollCancelled()) {
+			int cell = placementQueue[placementQueueHead++];
+			int value = sudoku.getValue(cell);
+			resetDigitAsCandidate(cell, value);
+			resetCellsAsCandidate(cell, value);
+		}
+	}
+
+	private void init() {
+		instrumentPasses = (metrics != null) || DEDUCTION_PASS_EVENT_TYPE.isEnabled();
+		// Queue up all the givens first: until the queue is drained every given is still a candidate for its cell
+		for (int cell = 0; cell < layout.numCells; cell++) {
+			if (givens.getValue(cell) != 0) {
+				setDigitInCell(cell, givens.getValue(cell));
 			}
 		}
+		runPass(SINGLES_PASS);
+	}
 
-		for (int tmpRow = (row / BLOCK_SIZE * BLOCK_SIZE); tmpRow < (row + BLOCK_SIZE) / BLOCK_SIZE * BLOCK_SIZE; tmpRow++) {
-			for (int tmpCol = (col / BLOCK_SIZE * BLOCK_SIZE); tmpCol < (col + BLOCK_SIZE) / BLOCK_SIZE * BLOCK_SIZE; tmpCol++) {
-				if (tmpRow == row && tmpCol == col) {
-					continue;
+	/**
+	 * Runs a pass of propagating the queued placements (SINGLES_PASS), of block-line interactions (BLOCK_LINE_PASS)
+	 * or of the strategy at the given index. If metrics are set or JFR records DeductionPassEvents (as of init()),
+	 * the pass is timed and recorded; otherwise this costs a field check.
+	 */
+	private void runPass(int pass) {
+		if (!instrumentPasses) {
+			applyPass(pass);
+			return;
+		}
+		DeductionPassEvent event = new DeductionPassEvent();
+		long previousNumEliminations = numEliminations;
+		long startTime = System.nanoTime();
+		event.begin();
+		applyPass(pass);
+		long elapsedNanos = System.nanoTime() - startTime;
+		String technique = (pass == SINGLES_PASS) ? SolverMetrics.SINGLES
+			: (pass == BLOCK_LINE_PASS) ? SolverMetrics.BLOCK_LINE : strategies[pass].getName();
+		long passEliminations = numEliminations - previousNumEliminations;
+		if (metrics != null) {
+			metrics.recordPass(technique, passEliminations, elapsedNanos);
+		}
+		if (event.shouldCommit()) {
+			event.technique = technique;
+			event.eliminations = passEliminations;
+			event.commit();
+		}
+	}
+
+	private void applyPass(int pass) {
+		if (pass == SINGLES_PASS) {
+			propagatePlacements();
+		} else if (pass == BLOCK_LINE_PASS) {
+			checkPossiblePositionsForDigitAcrossBlocks();
+		} else {
+			strategies[pass].apply(this);
+		}
+	}
+
+	/**
+	 * Runs the block-line rule pass and the placements it leads to, until the grid is solved or an iteration
+	 * makes no progress (stall). Singles are picked up as soon as the eliminations leading to them happen, so
+	 * there is no sweep over the cells.
+	 *
+	 * When the block-line pass finds nothing, the strategies are tried from the cheapest up, stopping at the
+	 * first one that eliminates something, so that the next iteration starts again from the cheap rules.
+	 */
+	private void propagate() {
+		int numIterations = 0;
+		while (!sudoku.isSolved() && !contradiction) {
+			long previousNumEliminations = numEliminations;
+			runPass(BLOCK_LINE_PASS);
+			runPass(SINGLES_PASS);
+			for (int idx = 0; idx < strategies.length && numEliminations == previousNumEliminations; idx++) {
+				if (contradiction || sudoku.isSolved() || pollCancelled()) {
+					break;
 				}
-				candidateDigitsForAllCells[tmpRow][tmpCol].reSetBit(value);
-				if (sudoku.getValue(tmpRow, tmpCol) == 0 && candidateDigitsForAllCells[tmpRow][tmpCol].isOnlyBitSet()) {
-					int onlyCandidate = candidateDigitsForAllCells[tmpRow][tmpCol].getNumberForBitSet();
-					setDigitInCell(tmpRow, tmpCol, onlyCandidate);
+				runPass(idx);
+				runPass(SINGLES_PASS);
+				if (numEliminations != previousNumEliminations
+						&& (hardestStrategy == null || strategies[idx].getCost() > hardestStrategy.getCost())) {
+					hardestStrategy = strategies[idx];
 				}
 			}
+			numIterations++;
+			listener.onIterationEnd(sudoku, numIterations);
+
+			if (numEliminations == previousNumEliminations || numIterations == MAX_ITERATIONS || isCancelled()) {
+				break;
+			}
 		}
+		this.numIterations += numIterations;
+	}
 
-		int blockIndex = Helper.getBlockIndexFromRowCol(row, col, GRID_ROW_SIZE, BLOCK_SIZE);
-		for (int cellIndexInBlock = 0; cellIndexInBlock < GRID_ROW_SIZE; cellIndexInBlock++) {
-			candidateCellArrayForDigitsInBlocks[blockIndex][value - 1].reSetBit(cellIndexInBlock + 1);
+	/**
+	 * Returns true if the solve is to give up: the token of solve(CancellationToken) was cancelled or its
+	 * deadline passed, or this solver is a branch of a parallel search that got cancelled. Once it has returned
+	 * true, it keeps doing so until the next solve.
+	 */
+	private boolean isCancelled() {
+		if (!cancelled && ((cancellationToken != null && cancellationToken.isCancelled())
+				|| (parallelSearch != null && parallelSearch.isCancelled()))) {
+			cancelled = true;
 		}
+		return cancelled;
+	}
 
-		// Also for the horizontal and vertical neighbouring blocks, reset this digit as not being a candidate _only_ for
-		// the cells that fall in the same row and col respectively
-		int cellIndexInBlock = Helper.getCellIndexWithinBlockFromRowCol(row, col, GRID_ROW_SIZE, BLOCK_SIZE);
-		for (int tmpBlockIndex = (blockIndex / BLOCK_SIZE) * BLOCK_SIZE; tmpBlockIndex < (blockIndex + BLOCK_SIZE)/BLOCK_SIZE*BLOCK_SIZE; tmpBlockIndex++) {
-			if (tmpBlockIndex == blockIndex) {
-				continue;
-			}
-			for (int tmpCellIndex = cellIndexInBlock / BLOCK_SIZE * BLOCK_SIZE; tmpCellIndex < (cellIndexInBlock + BLOCK_SIZE)/BLOCK_SIZE*BLOCK_SIZE; tmpCellIndex++) {
-				candidateCellArrayForDigitsInBlocks[tmpBlockIndex][value - 1].reSetBit(tmpCellIndex + 1);
+	/**
+	 * isCancelled() for the inner loops of the rule passes and strategies, which poll it on every step: only
+	 * every 256th poll actually checks, so a poll costs a counter increment, and nothing at all when there is
+	 * nothing to cancel the solve
+	 */
+	boolean pollCancelled() {
+		if (cancelled) {
+			return true;
+		}
+		if (cancellationToken == null && parallelSearch == null) {
+			return false;
+		}
+		return (++numCancelPolls & CANCEL_CHECK_MASK) == 0 && isCancelled();
+	}
+
+	/**
+	 * Returns true if the current state can not lead to a solution: a digit was placed on top of a peer holding
+	 * the same digit, or an unsolved cell has no candidates left.
+	 */
+	boolean isDeadEnd() {
+		if (contradiction) {
+			return true;
+		}
+		for (int cell = 0; cell < layout.numCells; cell++) {
+			if (sudoku.getValue(cell) == 0 && candidateDigits[cell] == 0) {
+				return true;
 			}
 		}
+		return false;
+	}
 
-		cellIndexInBlock = Helper.getCellIndexWithinBlockFromRowCol(row, col, GRID_ROW_SIZE, BLOCK_SIZE);
-		for (int tmpBlockIndex = blockIndex % BLOCK_SIZE; tmpBlockIndex < GRID_ROW_SIZE; tmpBlockIndex += BLOCK_SIZE) {
-			if (tmpBlockIndex == blockIndex) {
+	/**
+	 * Returns the unsolved cell with the fewest candidates, the one to guess on
+	 */
+	int findGuessCell() {
+		int guessCell = -1;
+		int fewestCandidates = gridRowSize + 1;
+		for (int cell = 0; cell < layout.numCells; cell++) {
+			if (sudoku.getValue(cell) != 0) {
 				continue;
 			}
-			for (int tmpCellIndex = cellIndexInBlock % BLOCK_SIZE; tmpCellIndex < GRID_ROW_SIZE; tmpCellIndex += BLOCK_SIZE) {
-				candidateCellArrayForDigitsInBlocks[tmpBlockIndex][value - 1].reSetBit(tmpCellIndex + 1);
+			int numCandidates = Long.bitCount(candidateDigits[cell]);
+			if (numCandidates < fewestCandidates) {
+				fewestCandidates = numCandidates;
+				guessCell = cell;
 			}
 		}
+		return guessCell;
 	}
 
-	private void setDigitInCell(int row, int col, int value) {
-		sudoku.setValue(row, col, value);
-		printGrid();
-		resetDigitAsCandidate(row, col, value);
-		resetCellsAsCandidate(row, col, value);
+	/**
+	 * Places the digit guessed in the cell and runs the rule passes on it. Returns the mark to undo the guess to.
+	 * The changes are recorded on the trail from the first guess on.
+	 */
+	int guess(int guessCell, int digit) {
+		if (trail == null) {
+			trail = new SolverTrail(4 * layout.numCells);
+		}
+		recordingTrail = true;
+		int trailMark = trail.size();
+		setDigitInCell(guessCell, digit);
+		runPass(SINGLES_PASS);
+		propagate();
+		return trailMark;
 	}
 
-	private void init() {
-		for (int row = 0; row < GRID_ROW_SIZE; row++) {
-			for (int col = 0; col < GRID_ROW_SIZE; col++) {
-				// Even if the input value for given cell is 0, another value might 
-				// have been set in the cell due to ruling out other candidate
-				// values as a result of entering values in other cells
-				if (grid[row][col] == 0 && sudoku.getValue(row, col) != 0) {
-					continue;
-				}
+	/**
+	 * Fallback for when the rule passes stall. Picks the unsolved cell with the fewest candidates and tries each
+	 * of its candidates in turn, running the rule passes again for every guess, and undoing it through the trail
+	 * if it leads nowhere. Returns true if a solution was found, which is then left in the grid of this solver.
+	 * Gives up as soon as the solve is cancelled (see isCancelled()), undoing all its guesses.
+	 */
+	boolean search() {
+		numNodesExplored++;
+		if (isDeadEnd()) {
+			return false;
+		}
+		if (sudoku.isSolved()) {
+			return validator.validate(sudoku) == GridValidator.VALID;
+		}
+		if (isCancelled()) {
+			return false;
+		}
 
-				sudoku.setValue(row, col, grid[row][col]);
+		int guessCell = findGuessCell();
+		int queueMark = placementQueueTail;
+		// The strategies the guesses needed do not count for getHardestStrategy()
+		DeductionStrategy rootHardestStrategy = hardestStrategy;
+		boolean solved = false;
+		for (long candidates = candidateDigits[guessCell]; candidates != 0 && !solved && !isCancelled(); candidates &= candidates - 1) {
+			int trailMark = guess(guessCell, Long.numberOfTrailingZeros(candidates) + 1);
+			solved = search();
+			if (!solved) {
+				undoTo(trailMark, queueMark);
+			}
+		}
+		hardestStrategy = rootHardestStrategy;
+		return solved;
+	}
 
-				int value = grid[row][col];
-				if (value == 0) {
-					continue;
+	/**
+	 * Returns true if the search is to be left to the SAT backend: the grid is large enough (see
+	 * setSatMinGridSize()), the rule passes left something to search and the solve was not cancelled
+	 */
+	private boolean usesSatBackend() {
+		return gridRowSize >= satMinGridSize && !isDeadEnd() && !sudoku.isSolved() && !isCancelled();
+	}
+
+	/**
+	 * Encodes the grid as the rule passes left it, with the candidates of its unsolved cells, and solves that
+	 * with the SAT backend instead of searching. The first solution is filled into the grid of this solver, and
+	 * if maxSolutions is more than one, it is excluded to look for a second one. Returns the number of solutions
+	 * found. Every decision of the SAT solver counts as a search node. The SAT solver checks the cancellation
+	 * token too, and the grid is left as it is if it gives up.
+	 */
+	private int satSearch(int maxSolutions) {
+		SudokuCnf cnf = new SudokuCnf(layout, sudoku.getCells(), candidateDigits);
+		int numSolutions = 0;
+		int result = cnf.solve(cancellationToken);
+		if (result == SatSolver.UNKNOWN) {
+			cancelled = true;
+		} else if (result == SatSolver.SATISFIABLE) {
+			numSolutions = 1;
+			int[] solution = cnf.getSolution();
+			for (int cell = 0; cell < layout.numCells; cell++) {
+				if (sudoku.getValue(cell) == 0) {
+					sudoku.setValue(cell, solution[cell]);
+				}
+			}
+			if (maxSolutions > 1) {
+				cnf.excludeSolution();
+				if (cnf.solve(cancellationToken) == SatSolver.SATISFIABLE) {
+					numSolutions++;
 				}
-				resetDigitAsCandidate(row, col, value);
-				resetCellsAsCandidate(row, col, value);
 			}
-		}	
+		}
+		numNodesExplored += 1 + cnf.getSolver().getNumDecisions();
+		return numSolutions;
 	}
 
-        public void solve() throws Exception {
-		if (!Helper.isValidFormation(new Sudoku(grid))) {
-			System.out.println("Not a valid formation. Not solving");	
-			return;
+	/**
+	 * Same as search(), but goes on through the other branches after a solution, until maxSolutions solutions
+	 * have been found or every branch has been explored. Returns the number of solutions found. The first one
+	 * is copied to firstSolution, as the grid of this solver gets undone past it.
+	 */
+	private int countSearch(int maxSolutions) {
+		numNodesExplored++;
+		if (isDeadEnd()) {
+			return 0;
 		}
-
-		init();
-		printGrid();
-		int numIterations = 0;
-		while (!sudoku.isSolved()) {
-			for (int row = 0; row < GRID_ROW_SIZE; row++) {
-				for (int col = 0; col < GRID_ROW_SIZE; col++) {
-					int value = sudoku.getValue(row, col);
-					if (value == 0) {
-						if (candidateDigitsForAllCells[row][col].isOnlyBitSet()) {
-							int candidateValue = candidateDigitsForAllCells[row][col].getNumberForBitSet();
-							setDigitInCell(row, col, candidateValue);
-						}
-						continue;
-					}
-					resetDigitAsCandidate(row, col, value);
-					resetCellsAsCandidate(row, col, value);
+		if (sudoku.isSolved()) {
+			if (validator.validate(sudoku) != GridValidator.VALID) {
+				return 0;
+			}
+			if (!firstSolutionFound) {
+				if (firstSolution == null) {
+					firstSolution = new int[layout.numCells];
+				}
+				for (int cell = 0; cell < layout.numCells; cell++) {
+					firstSolution[cell] = sudoku.getValue(cell);
 				}
+				firstSolutionFound = true;
 			}
-			checkPossiblePositionsForDigitAcrossBlocks();
-			numIterations++;
-			System.out.println("\n\n Iteration:" + numIterations);
-			printGrid();
-			if (numIterations == 1000) {
+			return 1;
+		}
+
+		int numSolutions = 0;
+		int guessCell = findGuessCell();
+		int queueMark = placementQueueTail;
+		DeductionStrategy rootHardestStrategy = hardestStrategy;
+		for (long candidates = candidateDigits[guessCell]; candidates != 0; candidates &= candidates - 1) {
+			int trailMark = guess(guessCell, Long.numberOfTrailingZeros(candidates) + 1);
+			numSolutions += countSearch(maxSolutions - numSolutions);
+			undoTo(trailMark, queueMark);
+			if (numSolutions >= maxSolutions) {
 				break;
 			}
 		}
+		hardestStrategy = rootHardestStrategy;
+		return numSolutions;
+	}
+
+	/**
+	 * Solves the grid given at construction time. Returns true if it was solved, false if the givens are not
+	 * a valid formation or the puzzle has no solution.
+	 */
+	public boolean solve() {
+		SolveEvent event = new SolveEvent();
+		long startTime = (metrics != null) ? System.nanoTime() : 0;
+		event.begin();
+		boolean solved = solveGrid();
+		recordSolve(event, startTime, solved ? 1 : 0);
+		return solved;
+	}
+
+	/**
+	 * Runs the rule passes on the givens, without searching, for SudokuSession to make its guesses from.
+	 * Returns false if the givens are not a valid formation.
+	 */
+	boolean deduce() {
+		numNodesExplored = 0;
+		hardestStrategy = null;
+		cancelled = false;
+		if (validator.validate(givens) != GridValidator.VALID) {
+			return false;
+		}
+
+		init();
+		propagate();
+		return true;
+	}
+
+	/**
+	 * Same as solve(), but gives up once the token is cancelled or its deadline passes, so that a solve can be
+	 * held to a time budget. The token is checked every 256 steps of the inner loops of the rule passes and
+	 * strategies (see pollCancelled()) and of the SAT backend, and at every search node, so a solve runs over its
+	 * deadline by a few hundred steps at most. Returns false if the solve gave up, which wasCancelled() tells
+	 * apart from a puzzle without a solution. getSudoku() then holds the partial result: the digits deduced by
+	 * the rule passes (the guesses of the search are undone), and getNumCandidatesLeft() says how much is left.
+	 */
+	public boolean solve(CancellationToken token) {
+		cancellationToken = token;
+		try {
+			return solve();
+		} finally {
+			cancellationToken = null;
+		}
+	}
+
+	private boolean solveGrid() {
+		numNodesExplored = 0;
+		hardestStrategy = null;
+		cancelled = false;
+		if (validator.validate(givens) != GridValidator.VALID) {
+			return false;
+		}
+
+		init();
+		propagate();
+		if (usesSatBackend()) {
+			return satSearch(1) == 1;
+		}
+		// Also catches a grid that got completely filled in while following a contradiction
+		return search();
+	}
+
+	/**
+	 * Same as solve(), but once the rule passes stall the search branches are explored in parallel by the tasks
+	 * of the pool, each on a copy of this solver, and the first solution found cancels all the other branches
+	 * (see ParallelSearch). For a single very hard puzzle, where the latency matters more than the throughput;
+	 * the solution found first is not necessarily the one solve() would find, if there are several. The listener
+	 * is only told about the deductions made before the search. Grids left to the SAT backend (see
+	 * setSatMinGridSize()) are solved by it as with solve().
+	 */
+	public boolean solveParallel(ForkJoinPool pool) {
+		SolveEvent event = new SolveEvent();
+		long startTime = (metrics != null) ? System.nanoTime() : 0;
+		event.begin();
+		boolean solved = solveGridParallel(pool);
+		recordSolve(event, startTime, solved ? 1 : 0);
+		return solved;
+	}
+
+	private boolean solveGridParallel(ForkJoinPool pool) {
+		numNodesExplored = 0;
+		hardestStrategy = null;
+		cancelled = false;
+		if (validator.validate(givens) != GridValidator.VALID) {
+			return false;
+		}
+
+		init();
+		propagate();
+		if (usesSatBackend()) {
+			return satSearch(1) == 1;
+		}
+		if (isDeadEnd() || sudoku.isSolved()) {
+			return search();
+		}
+		ParallelSearch parallelSearch = new ParallelSearch();
+		SudokuSolver solvedBranch = parallelSearch.run(pool, this);
+		numNodesExplored += 1 + parallelSearch.getNodesExplored();
+		if (solvedBranch == null) {
+			return false;
+		}
+		for (int cell = 0; cell < layout.numCells; cell++) {
+			sudoku.setValue(cell, solvedBranch.sudoku.getValue(cell));
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether the grid given at construction time has exactly one solution. Unlike solve(), the search
+	 * goes on after the first solution, but stops as soon as it finds a second one, so a puzzle with many
+	 * solutions costs about as much as one with two.
+	 * Returns NO_SOLUTION (also for givens that are not a valid formation), UNIQUE_SOLUTION or MULTIPLE_SOLUTIONS
+	 * (2 or more). Unless there is no solution, getSudoku() then holds the first solution found.
+	 */
+	public int countSolutions() {
+		SolveEvent event = new SolveEvent();
+		long startTime = (metrics != null) ? System.nanoTime() : 0;
+		event.begin();
+		int numSolutions = countGridSolutions();
+		recordSolve(event, startTime, numSolutions);
+		return numSolutions;
+	}
+
+	private int countGridSolutions() {
+		numNodesExplored = 0;
+		hardestStrategy = null;
+		cancelled = false;
+		if (validator.validate(givens) != GridValidator.VALID) {
+			return NO_SOLUTION;
+		}
+
+		init();
+		propagate();
+		if (usesSatBackend()) {
+			return satSearch(MULTIPLE_SOLUTIONS);
+		}
+		firstSolutionFound = false;
+		int numSolutions = countSearch(MULTIPLE_SOLUTIONS);
+		if (firstSolutionFound) {
+			for (int cell = 0; cell < layout.numCells; cell++) {
+				sudoku.setValue(cell, firstSolution[cell]);
+			}
+		}
+		return numSolutions;
+	}
 
-		if (Helper.isValidFormation(sudoku)) {
-			System.out.println("Its a valid formation");
+	/**
+	 * Adds the solve that started at startTime (if there are metrics) to the metrics, and commits its JFR event
+	 */
+	private void recordSolve(SolveEvent event, long startTime, int numSolutions) {
+		if (metrics != null) {
+			metrics.recordSolve(System.nanoTime() - startTime, numIterations, numNakedSingles, numHiddenSingles,
+				numNodesExplored);
+		}
+		if (event.shouldCommit()) {
+			event.gridSize = gridRowSize;
+			event.numSolutions = numSolutions;
+			event.iterations = numIterations;
+			event.nakedSingles = numNakedSingles;
+			event.hiddenSingles = numHiddenSingles;
+			event.eliminations = numEliminations;
+			event.searchNodes = numNodesExplored;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Returns true if the last solve gave up because its cancellation token was cancelled, see
+	 * solve(CancellationToken)
+	 */
+	public boolean wasCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Number of candidates left in the unsolved cells of the grid, 0 once it is solved: what a solve that gave up
+	 * left to do
+	 */
+	public int getNumCandidatesLeft() {
+		int numCandidates = 0;
+		for (int cell = 0; cell < layout.numCells; cell++) {
+			numCandidates += Long.bitCount(candidateDigits[cell]);
 		}
+		return numCandidates;
+	}
+
+	/**
+	 * Number of search nodes (grids the search looked at, including the one the rule passes left) explored by
+	 * the last call to solve() or countSolutions()
+	 */
+	public long getNodesExplored() {
+		return numNodesExplored;
+	}
+
+	/**
+	 * Reads whitespace separated integers until the input runs out, and lays them out as a square grid. The size
+	 * of the grid follows from the number of integers: 81 for a 9x9 grid, 256 for 16x16, 625 for 25x25 and so on.
+	 * A 9x9 puzzle can also be given as a single line in the TEXT format (see PuzzleFormat).
+	 * Returns null if that is not the number of cells of a supported grid.
+	 */
+	private static int[][] readGridFromScanner(Scanner s) {
+		List<Integer> values = new ArrayList<Integer>();
+		while (s.hasNextInt()) {
+			values.add(s.nextInt());
+		}
+		if (values.isEmpty() && s.hasNext()) {
+			String line = s.next();
+			int[] cells = new int[GridLayout.STANDARD.numCells];
+			if (!PuzzleFormat.parseLine(line, cells)) {
+				System.out.println("Expected a square grid, found " + line);
+				return null;
+			}
+			for (int cell : cells) {
+				values.add(cell);
+			}
+		}
+		GridLayout layout = GridLayout.forNumCells(values.size());
+		if (layout == null) {
+			System.out.println("Expected a square grid, found " + values.size() + " values");
+			return null;
+		}
+		int[][] grid = new int[layout.size][layout.size];
+		for (int cell = 0; cell < layout.numCells; cell++) {
+			grid[cell / layout.size][cell % layout.size] = values.get(cell);
+		}
+		return grid;
 	}
 
 	private static int[][] readGridFromFile(String filePath) {
-		int[][] grid = new int[GRID_ROW_SIZE][GRID_ROW_SIZE];
+		int[][] grid = null;
 		Scanner s = null;
 		try {
 			s = new Scanner(new File(filePath));
-			int row = 0;
-			int col = 0;
-
-			while (s.hasNextInt()) {
-				int value = s.nextInt();
-				if (col == GRID_ROW_SIZE) {
-					col = 0;
-					row++;
-				}
-				grid[row][col] = value;
-				col++;
-			}
+			grid = readGridFromScanner(s);
 		} catch (Exception e) {
 			System.out.println("Failed reading " + filePath);
 		} finally {
@@ -470,30 +1215,43 @@ public class SudokuSolver {
 	 * If an argument was provided, treat it as input file, and read the input grid from that
 	 * file. If no argument was provided, read the grid from STDIN. The grid (either from file
 	 * or from STDIN) is expected to be whitespace separated integers, with the unset cells 
-	 * having a value of 0.
+	 * having a value of 0. The grid can be of any supported size (9x9, 16x16, 25x25...),
+	 * given row by row.
 	 */
-	public static void main(String[] args) throws Exception {
+	static int[][] readGrid(String[] args) {
 		int[][] grid = null;
-		Scanner s = new Scanner(System.in);
 		if (args.length > 0) {
 			grid = readGridFromFile(args[0]);
 			if (grid == null) {
 				System.out.println("Failed to read from file. Aborting");
 			}
 		} else {
-			grid = new int[GRID_ROW_SIZE][GRID_ROW_SIZE];
-			for (int row = 0; row < GRID_ROW_SIZE; row++) {
-				for (int col = 0; col < GRID_ROW_SIZE; col++) {
-					grid[row][col] = s.nextInt();
-				}
-			}	
+			grid = readGridFromScanner(new Scanner(System.in));
+		}
+		return grid;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int[][] grid = readGrid(args);
+		if (grid == null) {
+			return;
 		}
 
 		SudokuSolver sudokuSolver = new SudokuSolver(grid);
+		sudokuSolver.setListener(new VerboseSolveListener());
 		// Original
 		sudokuSolver.printGrid();
-		sudokuSolver.solve();
-		// After solving (limited to 1000 iterations)
+		if (!Helper.isValidFormation(new Sudoku(grid))) {
+			System.out.println("Not a valid formation. Not solving");
+			return;
+		}
+
+		if (sudokuSolver.solve()) {
+			System.out.println("Its a valid formation");
+		} else {
+			System.out.println("No solution exists");
+		}
+		// After solving
 		sudokuSolver.printGrid();
 	}
 }
@@ -0,0 +1,22 @@
+/**
+ * Listener that prints the grid to STDOUT after every placement and every iteration, the way the solver used
+ * to when run from the command line. Eliminations are not printed.
+ */
+public class VerboseSolveListener implements SolveListener {
+	@Override
+	public void onPlacement(Sudoku sudoku, int cell, int digit) {
+		System.out.println("\n\nGrid:");
+		sudoku.printGrid();
+	}
+
+	@Override
+	public void onElimination(Sudoku sudoku, int cell, int digit) {
+	}
+
+	@Override
+	public void onIterationEnd(Sudoku sudoku, int iteration) {
+		System.out.println("\n\n Iteration:" + iteration);
+		System.out.println("\n\nGrid:");
+		sudoku.printGrid();
+	}
+}
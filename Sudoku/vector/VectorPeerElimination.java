@@ -0,0 +1,56 @@
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * PeerElimination on the jdk.incubator.vector API. The candidates of the peers are gathered a vector at a time (8
+ * lanes with AVX-512, so the 20 peers of a 9x9 cell take 3 vectors), the digit is cleared in every lane that has
+ * it and the lanes are scattered back, and the peers left with at most one candidate are picked out by the same
+ * lane operations.
+ *
+ * Compiled apart from the sources in 'bin', as it needs the incubator module, e.g. from the 'bin' directory:
+ * javac --add-modules jdk.incubator.vector -cp . -d . ../vector/VectorPeerElimination.java
+ * SudokuSolver loads it when the JVM runs with --add-modules jdk.incubator.vector.
+ */
+final class VectorPeerElimination implements PeerElimination {
+	private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+	@Override
+	public int eliminate(long[] candidates, int[] peers, long digitBit, int[] eliminated) {
+		int numEliminated = 0;
+		int fullLength = SPECIES.loopBound(peers.length);
+		for (int idx = 0; idx < peers.length; idx += SPECIES.length()) {
+			LongVector peerCandidates;
+			VectorMask<Long> holding;
+			LongVector left;
+			if (idx < fullLength) {
+				peerCandidates = LongVector.fromArray(SPECIES, candidates, 0, peers, idx);
+				holding = peerCandidates.and(digitBit).compare(VectorOperators.NE, 0);
+				if (!holding.anyTrue()) {
+					continue;
+				}
+				// Writing back the lanes that do not have the digit leaves them as they were
+				left = peerCandidates.and(~digitBit);
+				left.intoArray(candidates, 0, peers, idx);
+			} else {
+				VectorMask<Long> inRange = SPECIES.indexInRange(idx, peers.length);
+				peerCandidates = LongVector.fromArray(SPECIES, candidates, 0, peers, idx, inRange);
+				holding = peerCandidates.and(digitBit).compare(VectorOperators.NE, 0, inRange);
+				if (!holding.anyTrue()) {
+					continue;
+				}
+				left = peerCandidates.and(~digitBit);
+				left.intoArray(candidates, 0, peers, idx, inRange);
+			}
+			// Clearing the lowest set bit leaves nothing if there was at most one
+			long atMostOneLeft = left.and(left.sub(1)).compare(VectorOperators.EQ, 0, holding).toLong();
+			for (long lanes = holding.toLong(); lanes != 0; lanes &= lanes - 1) {
+				int lane = Long.numberOfTrailingZeros(lanes);
+				int peer = peers[idx + lane];
+				eliminated[numEliminated++] = (((atMostOneLeft >>> lane) & 1) != 0) ? -(peer + 1) : peer;
+			}
+		}
+		return numEliminated;
+	}
+}